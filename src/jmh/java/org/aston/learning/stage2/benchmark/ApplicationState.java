@@ -0,0 +1,72 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.UserServiceApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the service (without the web layer) against throwaway PostgreSQL and Kafka containers,
+ * the same images the integration tests use. Shared by all benchmarks that need a real database.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private PostgreSQLContainer<?> postgres;
+    private KafkaContainer kafka;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                .withDatabaseName("benchdb")
+                .withUsername("bench")
+                .withPassword("bench");
+        kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.4.0"))
+                .withEnv("KAFKA_AUTO_CREATE_TOPICS_ENABLE", "true");
+        postgres.start();
+        kafka.start();
+
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.cloud.config.enabled=false",
+                        "spring.config.import=optional:file:.env[.properties]",
+                        "eureka.client.enabled=false",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.kafka.bootstrap-servers=" + kafka.getBootstrapServers(),
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        kafka.stop();
+        postgres.stop();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /** Unique suffix for emails, so repeated invocations never hit the unique constraint. */
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,55 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput in users per second: POST /api/users one at a time versus POST /api/users/batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BatchCreateBenchmark {
+
+    private static final int USERS_PER_INVOCATION = 500;
+
+    @Benchmark
+    @OperationsPerInvocation(USERS_PER_INVOCATION)
+    public void singleItemLoop(ApplicationState state, Blackhole blackhole) {
+        UserService userService = state.getBean(UserService.class);
+        for (UserRequest userRequest : requests(state)) {
+            blackhole.consume(userService.createUser(userRequest));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS_PER_INVOCATION)
+    public void batchInsert(ApplicationState state, Blackhole blackhole) {
+        UserService userService = state.getBean(UserService.class);
+        blackhole.consume(userService.createUsers(requests(state)));
+    }
+
+    private static List<UserRequest> requests(ApplicationState state) {
+        List<UserRequest> userRequests = new ArrayList<>(USERS_PER_INVOCATION);
+        for (int i = 0; i < USERS_PER_INVOCATION; i++) {
+            long id = state.nextId();
+            userRequests.add(new UserRequest("Bench User " + id, "bench" + id + "@example.com", 30));
+        }
+        return userRequests;
+    }
+}
@@ -0,0 +1,78 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.repository.UserView;
+import org.aston.learning.stage2.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving many ids: one read-only transaction and one SELECT per id, as a caller looping over
+ * GET /api/users/{id} causes (without the HTTP round trips, and bypassing the cache), versus
+ * {@link UserService#getUsersByIds} with a single IN query. Divide by {@code ids} for per-user cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchLookupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int ids;
+
+    private UserService userService;
+    private UserRepository userRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private List<Long> requested;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState state) {
+        userService = state.getBean(UserService.class);
+        userRepository = state.getBean(UserRepository.class);
+        readOnlyTransaction = new TransactionTemplate(state.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        List<UserRequest> requests = new ArrayList<>(ids);
+        for (int i = 0; i < ids; i++) {
+            long id = state.nextId();
+            requests.add(new UserRequest("Lookup User " + id, "lookup" + id + "@example.com", 30));
+        }
+        requested = userService.createUsers(requests).getResults().stream()
+                .map(result -> result.getUser().getId())
+                .toList();
+    }
+
+    @Benchmark
+    public List<UserView> oneByOne() {
+        List<UserView> users = new ArrayList<>(requested.size());
+        for (Long id : requested) {
+            users.add(readOnlyTransaction.execute(status -> userRepository.findViewById(id).orElseThrow()));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public UserLookupResponse batch() {
+        return userService.getUsersByIds(requested);
+    }
+}
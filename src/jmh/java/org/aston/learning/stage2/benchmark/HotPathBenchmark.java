@@ -0,0 +1,168 @@
+package org.aston.learning.stage2.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
+import org.aston.learning.stage2.config.KafkaProducerConfig;
+import org.aston.learning.stage2.config.KafkaProducerProperties;
+import org.aston.learning.stage2.controller.UserLinkFactory;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.event.UserEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.EvoInflectorLinkRelationProvider;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request CPU work outside the database: HAL JSON rendering of {@link UserResponse},
+ * UserEvent serialization with the value serializer KafkaProducerConfig would install, and
+ * {@link UserRequest} Bean Validation. Link construction is in UserLinkBenchmark and entity
+ * conversion in UserConversionBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotPathBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    private final UserRequest validRequest = new UserRequest("John Doe", "john.doe@example.com", 30);
+    private final UserRequest invalidRequest = new UserRequest("", "not-an-email", -1);
+
+    private ObjectWriter userWriter;
+    private ObjectWriter listWriter;
+    private UserResponse user;
+    private List<UserResponse> page;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    // Only the event benchmark depends on the value format, so only it runs once per format
+    @State(Scope.Benchmark)
+    public static class EventSerializer {
+
+        @Param({"JSON", "BINARY"})
+        public KafkaProducerProperties.ValueFormat valueFormat;
+
+        final UserEvent event = new UserEvent("USER_CREATED", "john.doe@example.com", "John Doe");
+        Serializer<Object> serializer;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+            producerProperties.setValueFormat(valueFormat);
+            KafkaProducerConfig producerConfig = new KafkaProducerConfig();
+            ReflectionTestUtils.setField(producerConfig, "bootstrapServers", "localhost:9092");
+            Map<String, Object> configs = ((DefaultKafkaProducerFactory<String, Object>)
+                    producerConfig.producerFactory(producerProperties, new SimpleMeterRegistry()))
+                    .getConfigurationProperties();
+            Class<?> serializerClass = (Class<?>) configs.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+            serializer = (Serializer<Object>) BeanUtils.instantiateClass(serializerClass);
+            serializer.configure(configs, false);
+        }
+
+        @TearDown
+        public void tearDown() {
+            serializer.close();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper halMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jackson2HalModule());
+        halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new EvoInflectorLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        userWriter = halMapper.writerFor(UserResponse.class);
+        listWriter = halMapper.writerFor(halMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+
+        // Links as UserController adds them, so the rendered JSON has the production shape
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/users")));
+        UserLinkFactory links = new UserLinkFactory();
+        user = withLinks(new UserResponse(1L, "John Doe", "john.doe@example.com", 30, LocalDateTime.now()), links);
+        page = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            page.add(withLinks(new UserResponse(id, "User " + id, "user" + id + "@example.com", 30,
+                    LocalDateTime.now()), links));
+        }
+        RequestContextHolder.resetRequestAttributes();
+
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUserPage() throws Exception {
+        return listWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeUserEvent(EventSerializer state) {
+        return state.serializer.serialize(TOPIC, state.event);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> validateValidRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> validateInvalidRequest() {
+        return validator.validate(invalidRequest);
+    }
+
+    private static UserResponse withLinks(UserResponse user, UserLinkFactory links) {
+        user.add(links.self(user.getId()));
+        user.add(links.update(user.getId()));
+        user.add(links.delete(user.getId()));
+        return user;
+    }
+}
@@ -0,0 +1,64 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.dto.UserPatchRequest;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changing one field of an existing user: PUT (load, email check, dirty-checked UPDATE) versus
+ * PATCH (one UPDATE ... RETURNING).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PatchVsPutBenchmark {
+
+    @State(Scope.Thread)
+    public static class Target {
+
+        UserService userService;
+        UserResponse user;
+        int age;
+
+        @Setup(Level.Trial)
+        public void create(ApplicationState state) {
+            userService = state.getBean(UserService.class);
+            long id = state.nextId();
+            user = userService.createUser(new UserRequest("Bench User " + id, "bench" + id + "@example.com", 30));
+        }
+    }
+
+    @Benchmark
+    public UserResponse put(Target target) {
+        return target.userService.updateUser(target.user.getId(),
+                new UserRequest(target.user.getName(), target.user.getEmail(), nextAge(target)));
+    }
+
+    @Benchmark
+    public UserResponse patch(Target target) {
+        return target.userService.patchUser(target.user.getId(),
+                new UserPatchRequest(null, null, nextAge(target)), null);
+    }
+
+    // A different value each time, so both paths always write
+    private static int nextAge(Target target) {
+        target.age = (target.age + 1) % 100;
+        return target.age;
+    }
+}
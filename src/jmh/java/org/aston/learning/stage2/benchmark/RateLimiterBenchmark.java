@@ -0,0 +1,77 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.config.RateLimitProperties;
+import org.aston.learning.stage2.config.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of {@link RateLimiter#tryAcquire} on the request path under contention, 8 threads:
+ * <ul>
+ *   <li>shared: every thread is the same client, all CASes hit one bucket</li>
+ *   <li>distinct: one client per thread, the common case of many clients</li>
+ *   <li>throttled: one shared client far over its quota, calls are rejected without a write</li>
+ * </ul>
+ * The budget is 1 µs per call: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RateLimiter"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+
+        @Param({"shared", "distinct", "throttled"})
+        String scenario;
+
+        RateLimiter rateLimiter;
+        final AtomicInteger threads = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            RateLimitProperties properties = new RateLimitProperties();
+            if (scenario.equals("throttled")) {
+                properties.setRead(new RateLimitProperties.Quota(1, 1));
+            } else {
+                // Never runs dry, so every call takes the admit path
+                properties.setRead(new RateLimitProperties.Quota(Integer.MAX_VALUE, 1_000_000_000));
+            }
+            rateLimiter = new RateLimiter(properties);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        String key;
+
+        @Setup
+        public void setUp(Limiter limiter) {
+            key = limiter.scenario.equals("distinct")
+                    ? "client-" + limiter.threads.incrementAndGet()
+                    : "batch-client";
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire(Limiter limiter, Client client) {
+        return limiter.rateLimiter.tryAcquire(client.key, RateLimiter.Category.READ);
+    }
+}
@@ -0,0 +1,84 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.event.UserEvent;
+import org.aston.learning.stage2.event.UserEventBinaryDeserializer;
+import org.aston.learning.stage2.event.UserEventBinarySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserEvent ser/de throughput: Spring JsonSerializer/JsonDeserializer versus UserEventCodec.
+ * Encoded sizes are printed once per fork.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserEventSerializationBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    private final UserEvent event = new UserEvent("USER_CREATED", "john.doe@example.com", "John Doe");
+
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<UserEvent> jsonDeserializer;
+    private UserEventBinarySerializer binarySerializer;
+    private UserEventBinaryDeserializer binaryDeserializer;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(JsonSerializer.ADD_TYPE_INFO_HEADERS, false), false);
+        jsonDeserializer = new JsonDeserializer<>(UserEvent.class, false);
+        binarySerializer = new UserEventBinarySerializer();
+        binaryDeserializer = new UserEventBinaryDeserializer();
+
+        json = jsonSerializer.serialize(TOPIC, event);
+        binary = binarySerializer.serialize(TOPIC, event);
+        System.out.printf("%nEncoded UserEvent size: json=%d bytes, binary=%d bytes%n", json.length, binary.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public UserEvent jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, json);
+    }
+
+    @Benchmark
+    public UserEvent binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binary);
+    }
+}
@@ -0,0 +1,103 @@
+package org.aston.learning.stage2.benchmark;
+
+import org.aston.learning.stage2.controller.UserController;
+import org.aston.learning.stage2.controller.UserLinkFactory;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Links for one page of users: the former {@code linkTo(methodOn(...))} calls versus
+ * {@link UserLinkFactory}. The page and the bound request are built once per iteration;
+ * each call strips the previous call's links first so the page never grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserLinkBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final UserLinkFactory links = new UserLinkFactory();
+    private final List<UserResponse> users = new ArrayList<>();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        users.clear();
+        for (long id = 1; id <= pageSize; id++) {
+            users.add(new UserResponse(id, "User " + id, "user" + id + "@example.com", 30, LocalDateTime.now()));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<UserResponse> methodOnProxies() {
+        for (UserResponse user : users) {
+            user.removeLinks();
+            user.add(linkTo(methodOn(UserController.class).getUserById(user.getId(), null)).withSelfRel());
+            user.add(linkTo(methodOn(UserController.class).updateUser(user.getId(), null, null)).withRel("update"));
+            user.add(linkTo(methodOn(UserController.class).deleteUser(user.getId(), null)).withRel("delete"));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public List<UserResponse> linkFactory() {
+        for (UserResponse user : users) {
+            user.removeLinks();
+            user.add(links.self(user.getId()));
+            user.add(links.update(user.getId()));
+            user.add(links.delete(user.getId()));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public Object singleUserMethodOn() {
+        Long id = users.get(0).getId();
+        return List.of(
+                linkTo(methodOn(UserController.class).getUserById(id, null)).withSelfRel(),
+                linkTo(methodOn(UserController.class).getAllUsers(null, UserService.DEFAULT_PAGE_SIZE)).withRel("all-users"),
+                linkTo(methodOn(UserController.class).updateUser(id, null, null)).withRel("update"),
+                linkTo(methodOn(UserController.class).deleteUser(id, null)).withRel("delete"));
+    }
+
+    @Benchmark
+    public Object singleUserLinkFactory() {
+        Long id = users.get(0).getId();
+        return List.of(links.self(id), links.allUsers(UserService.DEFAULT_PAGE_SIZE), links.update(id), links.delete(id));
+    }
+}
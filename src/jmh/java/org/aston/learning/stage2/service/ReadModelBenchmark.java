@@ -0,0 +1,93 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aston.learning.stage2.benchmark.ApplicationState;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-user reads from the {@link UserReadModel} versus a read-only transaction with one SELECT,
+ * both converted to {@link UserResponse}. Run with several thread counts ({@code -t 1}, {@code -t 8},
+ * ...): the database side levels off at the pool size, the read model keeps scaling with cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReadModelBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private UserRepository userRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private UserReadModel readModel;
+    private UserServiceImpl converter;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState state) {
+        userRepository = state.getBean(UserRepository.class);
+        PlatformTransactionManager transactionManager = state.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Conversion touches none of the collaborators
+        converter = new UserServiceImpl(null, null, null, null, null, null);
+
+        UserService userService = state.getBean(UserService.class);
+        ids = new ArrayList<>(USERS);
+        for (int from = 0; from < USERS; from += UserService.MAX_BATCH_SIZE) {
+            List<UserRequest> requests = new ArrayList<>(UserService.MAX_BATCH_SIZE);
+            for (int i = 0; i < UserService.MAX_BATCH_SIZE; i++) {
+                long id = state.nextId();
+                requests.add(new UserRequest("Model User " + id, "model" + id + "@example.com", 30));
+            }
+            userService.createUsers(requests).getResults()
+                    .forEach(result -> ids.add(result.getUser().getId()));
+        }
+
+        readModel = new UserReadModel(userRepository, transactionManager, new SyncTaskExecutor(),
+                new SimpleMeterRegistry(), true, Duration.ofSeconds(5), Duration.ofHours(1));
+        readModel.startBootstrap();
+    }
+
+    @Benchmark
+    public UserResponse readModel() {
+        return converter.convertToResponse(readModel.findById(randomId()).orElseThrow());
+    }
+
+    @Benchmark
+    public UserResponse database() {
+        Long id = randomId();
+        return readOnlyTransaction.execute(status ->
+                converter.convertToResponse(userRepository.findViewById(id).orElseThrow()));
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,112 @@
+package org.aston.learning.stage2.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.aston.learning.stage2.benchmark.ApplicationState;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.entity.User;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.repository.UserView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths before and after the UserView projections: managed entities converted with
+ * {@code convertToResponse(User)} versus constructor-expression views, one page and one row,
+ * both in a read-only transaction like the service methods. For allocation per operation run with
+ * the GC profiler: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReadPath -prof gc"}
+ * and compare {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    private static final int USERS = 1000;
+
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private UserServiceImpl converter;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState state) {
+        userRepository = state.getBean(UserRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(state.getBean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(state.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        // Conversion touches none of the collaborators
+        converter = new UserServiceImpl(null, null, null, null, null, null);
+
+        List<UserRequest> requests = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            long id = state.nextId();
+            requests.add(new UserRequest("Read User " + id, "read" + id + "@example.com", 30));
+        }
+        ids = state.getBean(UserService.class).createUsers(requests).getResults().stream()
+                .map(result -> result.getUser().getId())
+                .toList();
+    }
+
+    @Benchmark
+    public List<UserResponse> pageOfEntities() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("SELECT u FROM User u ORDER BY u.createdAt ASC, u.id ASC", User.class)
+                .setMaxResults(UserService.MAX_PAGE_SIZE)
+                .getResultList()
+                .stream()
+                .map(converter::convertToResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserResponse> pageOfViews() {
+        return readOnlyTransaction.execute(status -> userRepository
+                .findFirstPage(PageRequest.of(0, UserService.MAX_PAGE_SIZE))
+                .stream()
+                .map(converter::convertToResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public UserResponse oneEntity() {
+        Long id = randomId();
+        return readOnlyTransaction.execute(status -> converter.convertToResponse(entityManager.find(User.class, id)));
+    }
+
+    @Benchmark
+    public UserResponse oneView() {
+        Long id = randomId();
+        return readOnlyTransaction.execute(status -> {
+            UserView view = userRepository.findViewById(id).orElseThrow();
+            return converter.convertToResponse(view);
+        });
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
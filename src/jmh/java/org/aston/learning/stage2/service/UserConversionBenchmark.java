@@ -0,0 +1,68 @@
+package org.aston.learning.stage2.service;
+
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code UserServiceImpl.convertToResponse} for one entity and for a full page.
+ * Lives in the service package because the method is package-private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserConversionBenchmark {
+
+    private UserServiceImpl userService;
+    private User user;
+    private List<User> page;
+
+    @Setup
+    public void setUp() {
+        // Conversion touches none of the collaborators
+        userService = new UserServiceImpl(null, null, null, null, null, null);
+        user = user(1L);
+        page = new ArrayList<>();
+        for (long id = 1; id <= UserService.MAX_PAGE_SIZE; id++) {
+            page.add(user(id));
+        }
+    }
+
+    @Benchmark
+    public UserResponse convertOne() {
+        return userService.convertToResponse(user);
+    }
+
+    @Benchmark
+    public List<UserResponse> convertPage() {
+        List<UserResponse> responses = new ArrayList<>(page.size());
+        for (User entity : page) {
+            responses.add(userService.convertToResponse(entity));
+        }
+        return responses;
+    }
+
+    private static User user(long id) {
+        User user = new User("User " + id, "user" + id + "@example.com", 30);
+        user.setId(id);
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
@@ -0,0 +1,420 @@
+package org.aston.learning.stage2.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Open-loop HTTP load generator for /api/users.
+ * Requests are fired on a fixed schedule whether or not earlier ones have completed, and latency
+ * is measured from the scheduled start, not the actual send. A stalled server therefore shows up
+ * as queueing delay in the histogram instead of silently lowering the offered load
+ * (coordinated omission). Service time (from the actual send) is recorded alongside for comparison.
+ * Requests still unanswered a minute after the last one was scheduled are recorded as errors with
+ * the latency they had reached, so the report keeps the stalled tail instead of crashing or dropping it.
+ */
+final class OpenLoopDriver {
+
+    enum Operation { CREATE, GET, LIST, UPDATE, DELETE }
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+    private static final int ID_SLOTS = 1 << 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String baseUri;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    // Known ids for get/update/delete, a slot is 0 once its user was deleted
+    private final AtomicLongArray ids = new AtomicLongArray(ID_SLOTS);
+    private final AtomicLong idsWritten = new AtomicLong();
+    private final Map<Long, String> emails = new ConcurrentHashMap<>();
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    OpenLoopDriver(String baseUri, String mix) {
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        Map<Operation, Integer> weights = parseMix(mix);
+        this.operations = weights.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /** Creates {@code count} users up front so reads and deletes have something to hit. */
+    void seed(int count) {
+        for (int created = 0; created < count; ) {
+            int chunk = Math.min(1000, count - created);
+            StringBuilder body = new StringBuilder("[");
+            List<String> chunkEmails = new ArrayList<>(chunk);
+            for (int i = 0; i < chunk; i++) {
+                String email = nextEmail();
+                chunkEmails.add(email);
+                body.append(i == 0 ? "" : ",").append(userJson("Seed User", email));
+            }
+            HttpResponse<String> response = client.sendAsync(
+                    post("/api/users/batch", body.append(']').toString()), HttpResponse.BodyHandlers.ofString()).join();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+            }
+            JsonNode results = readTree(response.body()).path("results");
+            for (int i = 0; i < chunk; i++) {
+                remember(results.path(i).path("user").path("id").asLong(), chunkEmails.get(i));
+            }
+            created += chunk;
+        }
+    }
+
+    Report run(double requestsPerSecond, Duration warmup, Duration duration) {
+        Report report = new Report(duration);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        List<Request> inFlight = new ArrayList<>();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            Operation operation = nextOperation();
+            Request request = new Request(report, operation, intended, System.nanoTime(), intended >= measureFrom);
+            request.future = execute(operation).whenComplete((status, ex) -> request.complete(ex == null ? status : -1));
+            inFlight.add(request);
+            if (inFlight.size() >= 10_000) {
+                inFlight.removeIf(Request::isDone);
+            }
+        }
+        awaitOrAbandon(inFlight, report);
+        return report;
+    }
+
+    private static void awaitOrAbandon(List<Request> inFlight, Report report) {
+        try {
+            CompletableFuture.allOf(inFlight.stream().map(request -> request.future).toArray(CompletableFuture[]::new))
+                    .exceptionally(ex -> null)
+                    .get(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+            return;
+        } catch (TimeoutException ex) {
+            // Fall through: whatever is still open is recorded below
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        for (Request request : inFlight) {
+            if (request.complete(-1)) {
+                request.future.cancel(true);
+                if (request.measured) {
+                    report.unfinished.increment();
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Integer> execute(Operation operation) {
+        return switch (operation) {
+            case CREATE -> {
+                String email = nextEmail();
+                yield send(post("/api/users", userJson("Load User", email)), response -> {
+                    if (response.statusCode() == 201) {
+                        String location = response.headers().firstValue("Location").orElseThrow();
+                        remember(Long.parseLong(location.substring(location.lastIndexOf('/') + 1)), email);
+                    }
+                });
+            }
+            case GET -> {
+                long id = randomId();
+                yield send(HttpRequest.newBuilder(uri("/api/users/" + id)).GET().build(), null);
+            }
+            case LIST -> send(HttpRequest.newBuilder(uri("/api/users?size=20")).GET().build(), null);
+            case UPDATE -> {
+                long id = randomId();
+                String email = emails.getOrDefault(id, nextEmail());
+                yield send(HttpRequest.newBuilder(uri("/api/users/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(userJson("Updated User", email)))
+                        .build(), null);
+            }
+            case DELETE -> {
+                long id = takeRandomId();
+                yield send(HttpRequest.newBuilder(uri("/api/users/" + id)).DELETE().build(), null);
+            }
+        };
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request,
+                                            Consumer<HttpResponse<String>> onResponse) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (onResponse != null) {
+                onResponse.accept(response);
+            }
+            return response.statusCode();
+        });
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUri + path);
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void remember(long id, String email) {
+        emails.put(id, email);
+        ids.set((int) (idsWritten.getAndIncrement() & (ID_SLOTS - 1)), id);
+    }
+
+    private long randomId() {
+        long known = Math.min(idsWritten.get(), ID_SLOTS);
+        for (int attempt = 0; attempt < 8 && known > 0; attempt++) {
+            long id = ids.get(ThreadLocalRandom.current().nextInt((int) known));
+            if (id != 0) {
+                return id;
+            }
+        }
+        // Nothing live to pick, the request will be a 4xx and is reported as such
+        return Long.MAX_VALUE;
+    }
+
+    private long takeRandomId() {
+        long known = Math.min(idsWritten.get(), ID_SLOTS);
+        for (int attempt = 0; attempt < 8 && known > 0; attempt++) {
+            long id = ids.getAndSet(ThreadLocalRandom.current().nextInt((int) known), 0);
+            if (id != 0) {
+                emails.remove(id);
+                return id;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private String nextEmail() {
+        return "load-" + emailSequence.incrementAndGet() + "@example.com";
+    }
+
+    private static String userJson(String name, String email) {
+        return "{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"age\":30}";
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations: " + mix);
+        }
+        return weights;
+    }
+
+    /** One scheduled request, recorded exactly once: when it completes or when the run gives up on it. */
+    private static final class Request {
+
+        private final Report report;
+        private final Operation operation;
+        private final long intended;
+        private final long sent;
+        private final boolean measured;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private CompletableFuture<Integer> future;
+
+        Request(Report report, Operation operation, long intended, long sent, boolean measured) {
+            this.report = report;
+            this.operation = operation;
+            this.intended = intended;
+            this.sent = sent;
+            this.measured = measured;
+        }
+
+        boolean isDone() {
+            return recorded.get();
+        }
+
+        /** Records the outcome if nothing was recorded yet; returns whether this call did. */
+        boolean complete(int status) {
+            if (!recorded.compareAndSet(false, true)) {
+                return false;
+            }
+            if (measured) {
+                long now = System.nanoTime();
+                report.record(operation, status, now - intended, now - sent);
+            }
+            return true;
+        }
+    }
+
+    /** Per-operation histograms and status counts for the measured window. */
+    static final class Report {
+
+        private final Duration duration;
+        private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> clientErrors = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> serverErrors = new EnumMap<>(Operation.class);
+        // Requests given up on at the drain deadline, also counted as errors
+        private final LongAdder unfinished = new LongAdder();
+
+        Report(Duration duration) {
+            this.duration = duration;
+            for (Operation operation : Operation.values()) {
+                responseTimes.put(operation, new ConcurrentHistogram(MAX_LATENCY_NANOS, 3));
+                serviceTimes.put(operation, new ConcurrentHistogram(MAX_LATENCY_NANOS, 3));
+                clientErrors.put(operation, new LongAdder());
+                serverErrors.put(operation, new LongAdder());
+            }
+        }
+
+        void record(Operation operation, int status, long responseNanos, long serviceNanos) {
+            responseTimes.get(operation).recordValue(Math.min(responseNanos, MAX_LATENCY_NANOS));
+            serviceTimes.get(operation).recordValue(Math.min(serviceNanos, MAX_LATENCY_NANOS));
+            if (status < 0 || status >= 500) {
+                serverErrors.get(operation).increment();
+            } else if (status >= 400) {
+                clientErrors.get(operation).increment();
+            }
+        }
+
+        long serverErrors() {
+            return serverErrors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        Histogram total() {
+            Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+            responseTimes.values().forEach(total::add);
+            return total;
+        }
+
+        void print(PrintStream out) {
+            Histogram total = total();
+            out.printf(Locale.ROOT, "%nThroughput: %.1f req/s over %ds (%d requests)%n",
+                    total.getTotalCount() / (double) duration.toSeconds(), duration.toSeconds(), total.getTotalCount());
+            out.printf(Locale.ROOT, "%-7s %8s %6s %6s %9s %9s %9s %9s %12s%n",
+                    "op", "count", "4xx", "5xx", "p50 ms", "p99 ms", "p999 ms", "max ms", "svc p99 ms");
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = responseTimes.get(operation);
+                if (histogram.getTotalCount() > 0) {
+                    printRow(out, operation.name().toLowerCase(Locale.ROOT), histogram, serviceTimes.get(operation),
+                            clientErrors.get(operation).sum(), serverErrors.get(operation).sum());
+                }
+            }
+            Histogram service = new Histogram(MAX_LATENCY_NANOS, 3);
+            serviceTimes.values().forEach(service::add);
+            printRow(out, "all", total, service,
+                    clientErrors.values().stream().mapToLong(LongAdder::sum).sum(), serverErrors());
+            if (unfinished.sum() > 0) {
+                out.printf(Locale.ROOT, "%d requests still unanswered after %ds, recorded as errors at that latency%n",
+                        unfinished.sum(), DRAIN_TIMEOUT.toSeconds());
+            }
+        }
+
+        /** Full percentile distributions in HdrHistogram log format, one file per operation. */
+        void writeHistograms(Path directory) {
+            try {
+                Files.createDirectories(directory);
+                for (Operation operation : Operation.values()) {
+                    Path file = directory.resolve("loadtest-" + operation.name().toLowerCase(Locale.ROOT) + ".hlog");
+                    try (PrintStream stream = new PrintStream(Files.newOutputStream(file))) {
+                        HistogramLogWriter writer = new HistogramLogWriter(stream);
+                        writer.outputLogFormatVersion();
+                        writer.outputLegend();
+                        writer.outputIntervalHistogram(responseTimes.get(operation));
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private static void printRow(PrintStream out, String name, Histogram response, Histogram service,
+                                     long clientErrors, long serverErrors) {
+            out.printf(Locale.ROOT, "%-7s %8d %6d %6d %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                    name, response.getTotalCount(), clientErrors, serverErrors,
+                    millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(99)),
+                    millis(response.getValueAtPercentile(99.9)), millis(response.getMaxValue()),
+                    millis(service.getValueAtPercentile(99)));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.aston.learning.stage2.loadtest;
+
+import org.aston.learning.stage2.service.UserEventPublisher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Drives the full application (Tomcat, JPA, outbox relay, Kafka producer) with an open-loop mixed
+ * workload. PostgreSQL is replaced by in-memory H2 in PostgreSQL mode and Kafka by an embedded
+ * broker, so nothing outside the JVM is needed. Tune with -Dloadtest.rate, -Dloadtest.duration,
+ * -Dloadtest.warmup, -Dloadtest.seed and -Dloadtest.mix.
+ * <p>
+ * -Dloadtest.virtual-threads=true runs the same workload with spring.threads.virtual.enabled. Compare
+ * two runs at a rate that keeps more requests in flight than Tomcat has threads (200): below that,
+ * both modes serve every request on its own thread and differ only in noise.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(partitions = 1, topics = {UserEventPublisher.TOPIC, UserEventPublisher.CACHE_INVALIDATION_TOPIC})
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.threads.virtual.enabled=${loadtest.virtual-threads:false}",
+        // The driver is a single client, the limiter would cap the offered rate
+        "user.rate-limit.enabled=false",
+        "logging.level.root=WARN"
+})
+class UserServiceLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Test
+    @DisplayName("Mixed CRUD workload at a fixed arrival rate")
+    void mixedWorkload() {
+        // Given
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+        int seed = Integer.parseInt(System.getProperty("loadtest.seed", "5000"));
+        String mix = System.getProperty("loadtest.mix", "create=15,get=50,list=20,update=10,delete=5");
+
+        OpenLoopDriver driver = new OpenLoopDriver("http://localhost:" + port, mix);
+        driver.seed(seed);
+
+        // When
+        OpenLoopDriver.Report report = driver.run(rate, warmup, duration);
+
+        // Then
+        String threads = virtualThreads ? "virtual" : "platform";
+        System.out.printf("%nLoad test: %.0f req/s offered, mix %s, %s threads%n", rate, mix, threads);
+        report.print(System.out);
+        report.writeHistograms(Path.of("target", "loadtest-" + threads));
+        assertThat(report.serverErrors()).as("requests failed with 5xx or I/O errors").isZero();
+    }
+}
@@ -1,12 +1,16 @@
 package org.aston.learning.stage2.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.aston.learning.stage2.event.UserEventBinarySerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -14,23 +18,34 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(KafkaProducerProperties.class)
 public class KafkaProducerConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
+    public ProducerFactory<String, Object> producerFactory(KafkaProducerProperties producerProperties,
+                                                           MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = new HashMap<>(producerProperties.buildProducerProperties());
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(JsonSerializer.TYPE_MAPPINGS, "userEvent:org.aston.learning.stage2.event.UserEvent");
-        return new DefaultKafkaProducerFactory<>(configProps);
+        if (producerProperties.getValueFormat() == KafkaProducerProperties.ValueFormat.BINARY) {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventBinarySerializer.class);
+        } else {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        }
+        configProps.put(JsonSerializer.TYPE_MAPPINGS, "userEvent:org.aston.learning.stage2.event.UserEvent,"
+                + "userState:org.aston.learning.stage2.event.UserStateEvent");
+
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        // kafka.producer.* meters (batch size, compression rate, record send rate, request latency...)
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
-}
\ No newline at end of file
+}
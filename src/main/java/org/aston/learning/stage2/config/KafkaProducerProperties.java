@@ -0,0 +1,127 @@
+package org.aston.learning.stage2.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Producer tuning for the user-service KafkaTemplate. A preset supplies a consistent set of values;
+ * any property set explicitly overrides the preset's value for it.
+ *
+ * <pre>
+ * user:
+ *   kafka:
+ *     producer:
+ *       preset: throughput
+ *       linger: 10ms        # optional override
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "user.kafka.producer")
+public class KafkaProducerProperties {
+
+    public enum Preset {
+        /** Kafka client defaults, nothing is set. */
+        DEFAULT,
+        /**
+         * For the outbox relay and batch imports: waits up to 20 ms to fill 128 KiB lz4-compressed
+         * batches, acks=all with idempotence, 5 requests in flight. Fewer, larger requests,
+         * less broker disk and network, a few ms of extra latency per send.
+         */
+        THROUGHPUT,
+        /**
+         * For latency-sensitive sends: no linger, no compression, leader-only acks, no idempotence.
+         * Every record leaves as soon as possible at the cost of more and smaller requests.
+         */
+        LOW_LATENCY
+    }
+
+    public enum ValueFormat {
+        /** Spring JsonSerializer with type headers, readable by any consumer. */
+        JSON,
+        /** UserEventCodec version 1, consumers need UserEventBinaryDeserializer. */
+        BINARY
+    }
+
+    private Preset preset = Preset.DEFAULT;
+    private ValueFormat valueFormat = ValueFormat.JSON;
+    private Integer batchSize;
+    private Duration linger;
+    private String compressionType;
+    private String acks;
+    private Boolean idempotence;
+    private Long bufferMemory;
+    private Integer maxInFlightRequestsPerConnection;
+
+    public Map<String, Object> buildProducerProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        switch (preset) {
+            case THROUGHPUT -> {
+                properties.put(ProducerConfig.BATCH_SIZE_CONFIG, 128 * 1024);
+                properties.put(ProducerConfig.LINGER_MS_CONFIG, 20L);
+                properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+                properties.put(ProducerConfig.ACKS_CONFIG, "all");
+                properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+                properties.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 64L * 1024 * 1024);
+                properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+            }
+            case LOW_LATENCY -> {
+                properties.put(ProducerConfig.BATCH_SIZE_CONFIG, 16 * 1024);
+                properties.put(ProducerConfig.LINGER_MS_CONFIG, 0L);
+                properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+                properties.put(ProducerConfig.ACKS_CONFIG, "1");
+                properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+                properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+            }
+            case DEFAULT -> {
+            }
+        }
+
+        putIfSet(properties, ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        putIfSet(properties, ProducerConfig.LINGER_MS_CONFIG, linger == null ? null : linger.toMillis());
+        putIfSet(properties, ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        putIfSet(properties, ProducerConfig.ACKS_CONFIG, acks);
+        putIfSet(properties, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        putIfSet(properties, ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        putIfSet(properties, ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
+        return properties;
+    }
+
+    private static void putIfSet(Map<String, Object> properties, String key, Object value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    // Getters and setters
+    public Preset getPreset() { return preset; }
+    public void setPreset(Preset preset) { this.preset = preset; }
+
+    public ValueFormat getValueFormat() { return valueFormat; }
+    public void setValueFormat(ValueFormat valueFormat) { this.valueFormat = valueFormat; }
+
+    public Integer getBatchSize() { return batchSize; }
+    public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+
+    public Duration getLinger() { return linger; }
+    public void setLinger(Duration linger) { this.linger = linger; }
+
+    public String getCompressionType() { return compressionType; }
+    public void setCompressionType(String compressionType) { this.compressionType = compressionType; }
+
+    public String getAcks() { return acks; }
+    public void setAcks(String acks) { this.acks = acks; }
+
+    public Boolean getIdempotence() { return idempotence; }
+    public void setIdempotence(Boolean idempotence) { this.idempotence = idempotence; }
+
+    public Long getBufferMemory() { return bufferMemory; }
+    public void setBufferMemory(Long bufferMemory) { this.bufferMemory = bufferMemory; }
+
+    public Integer getMaxInFlightRequestsPerConnection() { return maxInFlightRequestsPerConnection; }
+    public void setMaxInFlightRequestsPerConnection(Integer maxInFlightRequestsPerConnection) {
+        this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+    }
+}
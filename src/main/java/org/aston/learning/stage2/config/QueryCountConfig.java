@@ -0,0 +1,44 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Statement counting: every DataSource is wrapped in {@link QueryCountingDataSource}, HTTP requests
+ * are measured by {@link QueryCountFilter} and UserService methods by
+ * {@code user.service.operation.queries} (see ServiceMetricsConfig).
+ * Set {@code user.query-count.header-enabled=true} to get the {@code X-Query-Count} debug header.
+ */
+@Configuration
+public class QueryCountConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            MeterRegistry meterRegistry,
+            @Value("${user.query-count.header-enabled:false}") boolean headerEnabled) {
+        DistributionSummary queriesPerRequest = DistributionSummary.builder("user.http.queries")
+                .description("JDBC statements per HTTP request")
+                .register(meterRegistry);
+        return new FilterRegistrationBean<>(new QueryCountFilter(queriesPerRequest, headerEnabled));
+    }
+}
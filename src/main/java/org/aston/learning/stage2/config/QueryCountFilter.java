@@ -0,0 +1,81 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Records the statements each HTTP request ran on {@code user.http.queries} and, when enabled,
+ * reports them in an {@value #HEADER} response header. The header is set just before the body
+ * starts, so for streamed responses it only covers the statements run up to that point.
+ */
+class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Query-Count";
+
+    private final DistributionSummary queriesPerRequest;
+    private final boolean headerEnabled;
+
+    QueryCountFilter(DistributionSummary queriesPerRequest, boolean headerEnabled) {
+        this.queriesPerRequest = queriesPerRequest;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = QueryCounter.current();
+        HttpServletResponse target = headerEnabled ? new HeaderOnCommitResponse(response, start) : response;
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            long executed = QueryCounter.current() - start;
+            queriesPerRequest.record(executed);
+            if (headerEnabled && !response.isCommitted()) {
+                response.setHeader(HEADER, String.valueOf(executed));
+            }
+        }
+    }
+
+    private static final class HeaderOnCommitResponse extends HttpServletResponseWrapper {
+
+        private final long start;
+
+        HeaderOnCommitResponse(HttpServletResponse response, long start) {
+            super(response);
+            this.start = start;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setQueryCount();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setQueryCount();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setQueryCount();
+            super.flushBuffer();
+        }
+
+        private void setQueryCount() {
+            if (!isCommitted()) {
+                setHeader(HEADER, String.valueOf(QueryCounter.current() - start));
+            }
+        }
+    }
+}
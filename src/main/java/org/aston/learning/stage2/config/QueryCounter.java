@@ -0,0 +1,21 @@
+package org.aston.learning.stage2.config;
+
+/**
+ * Per-thread count of JDBC statements prepared through the application DataSource.
+ * The count only grows; callers take the difference between two readings.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private QueryCounter() {
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    static void increment() {
+        COUNT.get()[0]++;
+    }
+}
@@ -0,0 +1,78 @@
+package org.aston.learning.stage2.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Counts statements on {@link QueryCounter} as connections prepare them, covering Hibernate and
+ * JdbcTemplate alike. Sequence fetches are left out: with pooled ids they happen once per
+ * allocation block, so they would make per-operation counts depend on the pool position.
+ * Closing it closes the wrapped pool, so the pool is released whether the wrapper or the pool itself
+ * is what gets destroyed (pools close idempotently).
+ */
+class QueryCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+                    if (isStatement(method, args)) {
+                        QueryCounter.increment();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+
+    private static boolean isStatement(Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("createStatement")) {
+            return true;
+        }
+        if (!name.equals("prepareStatement") && !name.equals("prepareCall")) {
+            return false;
+        }
+        String sql = ((String) args[0]).toLowerCase(Locale.ROOT);
+        return !sql.contains("nextval") && !sql.contains("next value for");
+    }
+}
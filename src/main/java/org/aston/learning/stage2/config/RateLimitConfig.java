@@ -0,0 +1,39 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-client rate limiting of /api/users, see {@link RateLimiter} and {@link RateLimitFilter}.
+ * Toggled at runtime with {@code user.rate-limit.enabled}.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        RateLimiter rateLimiter = new RateLimiter(properties);
+        Gauge.builder("user.http.rate-limit.clients", rateLimiter, RateLimiter::trackedClients)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+        return rateLimiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter,
+                                                                   RateLimitProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, properties, meterRegistry));
+        registration.addUrlPatterns("/api/users", "/api/users/*");
+        // After the observation filter, so rejections still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
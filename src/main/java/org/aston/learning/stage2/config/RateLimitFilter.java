@@ -0,0 +1,87 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RateLimiter} to /api/users before the request reaches the controller, so a
+ * rejected call costs no pool connection. Over-limit calls get 429 with {@code Retry-After} in whole
+ * seconds and are counted on {@code user.http.rate-limited}. Clients are identified as described in
+ * {@link RateLimitProperties}.
+ */
+class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String USERS = "/api/users";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final Map<RateLimiter.Category, Counter> rejected = new EnumMap<>(RateLimiter.Category.class);
+
+    RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        for (RateLimiter.Category category : RateLimiter.Category.values()) {
+            rejected.put(category, Counter.builder("user.http.rate-limited")
+                    .description("Requests rejected with 429 by the per-client rate limit")
+                    .tag("category", category.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimiter.Category category = categorize(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        long wait = rateLimiter.tryAcquire(clientOf(request), category);
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        rejected.get(category).increment();
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Rate limit exceeded, retry after " + retryAfter + "s");
+    }
+
+    static RateLimiter.Category categorize(String method, String path) {
+        return switch (method) {
+            case "GET", "HEAD" -> path.equals(USERS) || path.equals(USERS + "/search") || path.equals(USERS + "/export")
+                    ? RateLimiter.Category.LIST
+                    : RateLimiter.Category.READ;
+            case "POST" -> path.equals(USERS + "/lookup") ? RateLimiter.Category.LIST : RateLimiter.Category.WRITE;
+            case "PUT", "PATCH", "DELETE" -> RateLimiter.Category.WRITE;
+            default -> RateLimiter.Category.READ;
+        };
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!properties.getTrustedProxies().contains(remote)) {
+            return remote;
+        }
+        // Behind the gateway every caller shares its address, so only the identity it vouches for tells them apart
+        String identity = request.getHeader(properties.getIdentityHeader());
+        return identity != null && !identity.isEmpty() ? "id:" + identity : remote;
+    }
+}
@@ -0,0 +1,105 @@
+package org.aston.learning.stage2.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-client quotas for /api/users, see {@link RateLimiter}. Off by default. Quotas and {@code enabled}
+ * are read on every request, so a config server refresh applies them to existing clients right away;
+ * {@code max-clients} and {@code idle-timeout} size the client map once at startup. Quotas must be
+ * positive, a binding that violates that fails.
+ * <p>
+ * A client is the {@code identity-header} value when the request comes from one of
+ * {@code trusted-proxies} (the API gateway, which sets the header from the authenticated caller and
+ * drops any incoming one), otherwise the remote address. The header is ignored on direct requests,
+ * so a caller cannot pick a fresh bucket per request.
+ *
+ * <pre>
+ * user:
+ *   rate-limit:
+ *     enabled: true
+ *     trusted-proxies: 10.0.0.5
+ *     list:
+ *       capacity: 40
+ *       refill-per-second: 20
+ * </pre>
+ */
+@Validated
+@ConfigurationProperties(prefix = "user.rate-limit")
+public class RateLimitProperties {
+
+    /** A bucket of {@code capacity} tokens refilled continuously at {@code refillPerSecond}. */
+    public static class Quota {
+        @Positive
+        private long capacity;
+        @Positive
+        private double refillPerSecond;
+
+        public Quota() {
+        }
+
+        public Quota(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public long getCapacity() { return capacity; }
+        public void setCapacity(long capacity) { this.capacity = capacity; }
+
+        public double getRefillPerSecond() { return refillPerSecond; }
+        public void setRefillPerSecond(double refillPerSecond) { this.refillPerSecond = refillPerSecond; }
+    }
+
+    private boolean enabled;
+    // Only honoured on requests from trusted-proxies
+    private String identityHeader = "X-Client-Id";
+    // Remote addresses (exact IPs) allowed to vouch for the caller through identity-header
+    private List<String> trustedProxies = new ArrayList<>();
+    private long maxClients = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    @Valid
+    private Quota read = new Quota(200, 100);
+    @Valid
+    private Quota write = new Quota(100, 50);
+    // Page, search and export requests scan many rows, so they get the smallest share
+    @Valid
+    private Quota list = new Quota(40, 20);
+
+    public Quota quotaFor(RateLimiter.Category category) {
+        return switch (category) {
+            case READ -> read;
+            case WRITE -> write;
+            case LIST -> list;
+        };
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getIdentityHeader() { return identityHeader; }
+    public void setIdentityHeader(String identityHeader) { this.identityHeader = identityHeader; }
+
+    public List<String> getTrustedProxies() { return trustedProxies; }
+    public void setTrustedProxies(List<String> trustedProxies) { this.trustedProxies = trustedProxies; }
+
+    public long getMaxClients() { return maxClients; }
+    public void setMaxClients(long maxClients) { this.maxClients = maxClients; }
+
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    public Quota getRead() { return read; }
+    public void setRead(Quota read) { this.read = read; }
+
+    public Quota getWrite() { return write; }
+    public void setWrite(Quota write) { this.write = write; }
+
+    public Quota getList() { return list; }
+    public void setList(Quota list) { this.list = list; }
+}
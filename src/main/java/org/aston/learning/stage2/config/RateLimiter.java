@@ -0,0 +1,86 @@
+package org.aston.learning.stage2.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process token buckets per client and {@link Category}.
+ * <p>
+ * Each bucket is a single long, the time at which it would be full again (GCRA, the
+ * "virtual scheduling" form of a token bucket): a call is admitted when pushing that time one
+ * refill interval further keeps it within {@code capacity} intervals of now, and is committed
+ * with one compareAndSet. There is no lock and no refill thread; tokens accrue implicitly as the
+ * clock moves. Clients live in a bounded Caffeine map and are evicted when idle, so a flood of
+ * distinct keys cannot grow the heap; an evicted client comes back with a full bucket.
+ */
+public class RateLimiter {
+
+    public enum Category {
+        /** GET of a single user. */
+        READ,
+        /** POST, PUT, PATCH and DELETE, except the id lookup. */
+        WRITE,
+        /** GET of pages, search results and the export, and id lookups. */
+        LIST
+    }
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final RateLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLongArray> clients;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Takes one token from the client's bucket for {@code category}.
+     *
+     * @return 0 when admitted, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String client, Category category) {
+        RateLimitProperties.Quota quota = properties.quotaFor(category);
+        long interval = (long) (1_000_000_000L / quota.getRefillPerSecond());
+        long tolerance = interval * quota.getCapacity();
+        AtomicLongArray buckets = clients.get(client, key -> newBuckets());
+        int slot = category.ordinal();
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long fullAt = buckets.get(slot);
+            long next = Math.max(fullAt, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (buckets.compareAndSet(slot, fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long trackedClients() {
+        return clients.estimatedSize();
+    }
+
+    private static AtomicLongArray newBuckets() {
+        AtomicLongArray buckets = new AtomicLongArray(CATEGORIES.length);
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            // Full: any past instant works, max(fullAt, now) picks now
+            buckets.set(i, Long.MIN_VALUE);
+        }
+        return buckets;
+    }
+}
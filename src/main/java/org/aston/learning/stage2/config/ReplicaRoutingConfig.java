@@ -0,0 +1,114 @@
+package org.aston.learning.stage2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with primary/replica routing when
+ * {@code user.datasource.routing.enabled=true}, see {@link ReplicaRoutingDataSource}.
+ * The primary pool keeps honouring {@code spring.datasource.*} and {@code spring.datasource.hikari.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getReadYourWritesWindow()));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ReplicaRoutingProperties properties,
+                                 Environment environment,
+                                 FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicaRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setMaximumPoolSize(properties.getReplicaPoolSize());
+            pool.setReadOnly(true);
+            replicas.add(pool);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, properties.getSelection(),
+                properties.getMaxLag(), properties.getLagQuery(), readYourWritesFilter.getFilter()::onWriteCommitted);
+        return new RoutingConnectionProxy(routing);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSource dataSource, MeterRegistry meterRegistry) throws SQLException {
+        return new ReplicaLagMonitor(dataSource.unwrap(ReplicaRoutingDataSource.class), meterRegistry);
+    }
+
+    /** Defers the routing decision to the first statement; closes all pools with the context. */
+    static class RoutingConnectionProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final ReplicaRoutingDataSource routing;
+
+        RoutingConnectionProxy(ReplicaRoutingDataSource routing) {
+            super(routing);
+            this.routing = routing;
+        }
+
+        @Override
+        public void close() {
+            routing.close();
+        }
+    }
+
+    public static class ReplicaLagMonitor {
+
+        private final ReplicaRoutingDataSource routing;
+
+        ReplicaLagMonitor(ReplicaRoutingDataSource routing, MeterRegistry meterRegistry) {
+            this.routing = routing;
+            for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+                Gauge.builder("user.datasource.replica.lag", replica, r -> r.getLagMillis() / 1000.0)
+                        .tag("replica", replica.getName())
+                        .baseUnit("seconds")
+                        .register(meterRegistry);
+                Gauge.builder("user.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .tag("replica", replica.getName())
+                        .register(meterRegistry);
+            }
+        }
+
+        @Scheduled(fixedDelayString = "${user.datasource.routing.lag-check-interval-ms:1000}")
+        public void checkReplicaLag() {
+            routing.checkReplicaLag();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.aston.learning.stage2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * The lookup runs when the transaction's first statement needs a connection, so this must sit behind
+ * a LazyConnectionDataSourceProxy: only then is the transaction's read-only flag known.
+ * <p>
+ * Reads stay on the primary when:
+ * <ul>
+ *   <li>no replica passed the last lag probe ({@link #checkReplicaLag()})</li>
+ *   <li>the current thread is pinned by {@link #pinToPrimary()}, i.e. the client wrote recently</li>
+ * </ul>
+ * After a read-write transaction commits, the {@code afterWriteCommit} callback runs on the committing
+ * thread so the caller can start the client's read-your-writes window.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> primaryPinned = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaRoutingProperties.Selection selection;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final Runnable afterWriteCommit;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    ReplicaRoutingProperties.Selection selection, Duration maxLag,
+                                    String lagQuery, Runnable afterWriteCommit) {
+        this.primary = primary;
+        this.selection = selection;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        this.afterWriteCommit = afterWriteCommit;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + (i + 1), replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /** Routes this thread's read-only transactions to the primary until {@link #clearPin()}. */
+    public static void pinToPrimary() {
+        primaryPinned.set(Boolean.TRUE);
+    }
+
+    public static void clearPin() {
+        primaryPinned.remove();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWriteCallback();
+            return PRIMARY;
+        }
+        if (Boolean.TRUE.equals(primaryPinned.get())) {
+            return PRIMARY;
+        }
+        Replica replica = select();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    private void registerWriteCallback() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterWriteCommit.run();
+                }
+            });
+        }
+    }
+
+    private Replica select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (selection == ReplicaRoutingProperties.Selection.LEAST_CONNECTIONS) {
+            Replica best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                if (replica.healthy) {
+                    int active = replica.activeConnections();
+                    if (active < bestActive) {
+                        best = replica;
+                        bestActive = active;
+                    }
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /** Probes every replica; one that is too far behind or does not answer gets no reads until the next probe. */
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Double lagSeconds = replica.jdbcTemplate.queryForObject(lagQuery, Double.class);
+                replica.lagMillis = lagSeconds == null ? Long.MAX_VALUE : (long) (lagSeconds * 1000);
+                healthy = replica.lagMillis <= maxLagMillis;
+            } catch (DataAccessException ex) {
+                replica.lagMillis = Long.MAX_VALUE;
+                healthy = false;
+                logger.debug("Lag probe of {} failed", replica.name, ex);
+            }
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    logger.info("Replica {} is back in rotation, lag {} ms", replica.name, replica.lagMillis);
+                } else {
+                    logger.warn("Replica {} taken out of rotation, lag {} ms exceeds {} ms or probe failed",
+                            replica.name, replica.lagMillis, maxLagMillis);
+                }
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                logger.warn("Could not close {}", dataSource, ex);
+            }
+        }
+    }
+
+    /** A replica pool and the result of its last lag probe. Out of rotation until the first probe. */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private volatile boolean healthy;
+        private volatile long lagMillis = Long.MAX_VALUE;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        public String getName() { return name; }
+
+        public boolean isHealthy() { return healthy; }
+
+        public long getLagMillis() { return lagMillis; }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.aston.learning.stage2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-replica routing, off by default. The primary is still configured through
+ * {@code spring.datasource.*}; replicas inherit its credentials unless they set their own.
+ *
+ * <pre>
+ * user:
+ *   datasource:
+ *     routing:
+ *       enabled: true
+ *       selection: least-connections
+ *       replicas:
+ *         - url: jdbc:postgresql://replica-1:5432/users
+ *         - url: jdbc:postgresql://replica-2:5432/users
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "user.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    /** Default lag probe: zero while the replica has replayed everything it received. */
+    public static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                    + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    public enum Selection {
+        ROUND_ROBIN,
+        /** Fewest active pool connections, ties broken by list order. */
+        LEAST_CONNECTIONS
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+    }
+
+    private boolean enabled;
+    private List<Replica> replicas = new ArrayList<>();
+    private Selection selection = Selection.ROUND_ROBIN;
+    private int replicaPoolSize = 10;
+    // Replicas further behind than this, or failing the probe, are skipped until they catch up
+    private Duration maxLag = Duration.ofSeconds(5);
+    private String lagQuery = POSTGRES_LAG_QUERY;
+    private long lagCheckIntervalMs = 1000;
+    // Reads from a client that wrote within this window go to the primary
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public List<Replica> getReplicas() { return replicas; }
+    public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+
+    public Selection getSelection() { return selection; }
+    public void setSelection(Selection selection) { this.selection = selection; }
+
+    public int getReplicaPoolSize() { return replicaPoolSize; }
+    public void setReplicaPoolSize(int replicaPoolSize) { this.replicaPoolSize = replicaPoolSize; }
+
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+
+    public String getLagQuery() { return lagQuery; }
+    public void setLagQuery(String lagQuery) { this.lagQuery = lagQuery; }
+
+    public long getLagCheckIntervalMs() { return lagCheckIntervalMs; }
+    public void setLagCheckIntervalMs(long lagCheckIntervalMs) { this.lagCheckIntervalMs = lagCheckIntervalMs; }
+
+    public Duration getReadYourWritesWindow() { return readYourWritesWindow; }
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) { this.readYourWritesWindow = readYourWritesWindow; }
+}
@@ -0,0 +1,54 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.aston.learning.stage2.repository.OutboxEventRepository;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.service.UserAlreadyExistsException;
+import org.aston.learning.stage2.service.UserEventPublisher;
+import org.aston.learning.stage2.service.UserNotFoundException;
+import org.aston.learning.stage2.service.UserService;
+import org.aston.learning.stage2.service.UserVersionMismatchException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layered timers for the user flow:
+ * <ul>
+ *   <li>{@code user.service.operation} - each UserService method, with percentile histograms,
+ *       plus {@code user.service.operation.failures{reason=not_found|conflict|version_mismatch|...}}
+ *       (subclasses included) and the JDBC
+ *       statements per call on {@code user.service.operation.queries}</li>
+ *   <li>{@code user.repository.call} - each repository method, tagged {@code repository}</li>
+ *   <li>{@code user.events.publisher.call} - outbox writes and cache-invalidation sends</li>
+ * </ul>
+ * Broker round trips are timed by UserEventDispatcher ({@code user.events.publish.latency}) and
+ * HTTP handling by Spring Boot ({@code http.server.requests}).
+ */
+@Configuration
+public class ServiceMetricsConfig {
+
+    @Bean
+    public static TimedMethodsPostProcessor timedMethodsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TimedMethodsPostProcessor(meterRegistry, List.of(
+                new TimedMethodsPostProcessor.TimedType(UserService.class, "user.service.operation",
+                        Tags.empty(), true, Map.of(
+                        UserNotFoundException.class, "not_found",
+                        UserAlreadyExistsException.class, "conflict",
+                        UserVersionMismatchException.class, "version_mismatch",
+                        OptimisticLockingFailureException.class, "concurrent_modification",
+                        DataIntegrityViolationException.class, "constraint_violation"), true),
+                new TimedMethodsPostProcessor.TimedType(UserRepository.class, "user.repository.call",
+                        Tags.of("repository", "users"), false, Map.of(), false),
+                new TimedMethodsPostProcessor.TimedType(OutboxEventRepository.class, "user.repository.call",
+                        Tags.of("repository", "outbox"), false, Map.of(), false),
+                new TimedMethodsPostProcessor.TimedType(UserEventPublisher.class, "user.events.publisher.call",
+                        Tags.empty(), false, Map.of(), false)));
+    }
+}
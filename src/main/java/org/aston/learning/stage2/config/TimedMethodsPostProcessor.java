@@ -0,0 +1,156 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps beans of the configured types so every public method is timed.
+ * All meters are registered when the bean is wrapped, so a call only does a map lookup and a
+ * {@link Timer.Sample}. Beans that are already proxies (e.g. {@code @Transactional}) get the timing
+ * advice prepended to their chain, so the measured time includes the commit.
+ */
+public class TimedMethodsPostProcessor implements BeanPostProcessor {
+
+    /**
+     * @param type           beans assignable to this type are timed
+     * @param metricName     timer name, tagged with {@code method} and {@code outcome}
+     * @param tags           extra tags, e.g. which repository
+     * @param histogram      publish a percentile histogram (adds buckets, use for the few top-level timers)
+     * @param failureCounter exceptions counted under {@code <metricName>.failures} with a {@code reason} tag;
+     *                       subclasses count under the closest mapped superclass
+     * @param countQueries   record the JDBC statements of each call on {@code <metricName>.queries}
+     */
+    public record TimedType(Class<?> type, String metricName, Tags tags, boolean histogram,
+                            Map<Class<? extends Throwable>, String> failureCounter, boolean countQueries) {
+    }
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final List<TimedType> timedTypes;
+
+    public TimedMethodsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry, List<TimedType> timedTypes) {
+        this.meterRegistry = meterRegistry;
+        this.timedTypes = timedTypes;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        for (TimedType timedType : timedTypes) {
+            if (timedType.type().isInstance(bean)) {
+                return wrap(bean, new TimingInterceptor(meterRegistry.getObject(), timedType,
+                        AopUtils.getTargetClass(bean)));
+            }
+        }
+        return bean;
+    }
+
+    private static Object wrap(Object bean, TimingInterceptor interceptor) {
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(!interceptor.timedType.type().isInterface());
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final TimedType timedType;
+        private final MeterRegistry meterRegistry;
+        private final Map<Method, Timer[]> timers = new HashMap<>();
+        private final Map<Method, DistributionSummary> queries = new HashMap<>();
+        private final Map<Class<? extends Throwable>, Counter> failures = new HashMap<>();
+
+        TimingInterceptor(MeterRegistry meterRegistry, TimedType timedType, Class<?> targetClass) {
+            this.timedType = timedType;
+            this.meterRegistry = meterRegistry;
+            for (Method method : timedType.type().getMethods()) {
+                if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                Timer[] byOutcome = {timer(method, "success"), timer(method, "error")};
+                // JDK proxies pass the interface method, CGLIB proxies the implementation's
+                timers.put(method, byOutcome);
+                timers.put(ClassUtils.getMostSpecificMethod(method, targetClass), byOutcome);
+                if (timedType.countQueries()) {
+                    DistributionSummary summary = DistributionSummary.builder(timedType.metricName() + ".queries")
+                            .tags(timedType.tags())
+                            .tag("method", method.getName())
+                            .register(meterRegistry);
+                    queries.put(method, summary);
+                    queries.put(ClassUtils.getMostSpecificMethod(method, targetClass), summary);
+                }
+            }
+            timedType.failureCounter().forEach((exceptionType, reason) -> failures.put(exceptionType,
+                    Counter.builder(timedType.metricName() + ".failures")
+                            .tags(timedType.tags())
+                            .tag("reason", reason)
+                            .register(meterRegistry)));
+        }
+
+        private Timer timer(Method method, String outcome) {
+            return Timer.builder(timedType.metricName())
+                    .tags(timedType.tags())
+                    .tag("method", method.getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram(timedType.histogram())
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Timer[] byOutcome = timers.get(invocation.getMethod());
+            if (byOutcome == null) {
+                return invocation.proceed();
+            }
+            long queriesBefore = QueryCounter.current();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                Object result = invocation.proceed();
+                sample.stop(byOutcome[0]);
+                return result;
+            } catch (Throwable ex) {
+                sample.stop(byOutcome[1]);
+                Counter counter = failureCounter(ex.getClass());
+                if (counter != null) {
+                    counter.increment();
+                }
+                throw ex;
+            } finally {
+                DistributionSummary summary = queries.get(invocation.getMethod());
+                if (summary != null) {
+                    summary.record(QueryCounter.current() - queriesBefore);
+                }
+            }
+        }
+
+        // Only on the error path, and exception hierarchies are shallow
+        private Counter failureCounter(Class<?> exceptionType) {
+            for (Class<?> type = exceptionType; type != null; type = type.getSuperclass()) {
+                Counter counter = failures.get(type);
+                if (counter != null) {
+                    return counter;
+                }
+            }
+            return null;
+        }
+    }
+}
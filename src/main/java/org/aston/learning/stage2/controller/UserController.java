@@ -1,64 +1,171 @@
 package org.aston.learning.stage2.controller;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.aston.learning.stage2.dto.UserBatchResponse;
+import org.aston.learning.stage2.dto.UserBulkDeleteResponse;
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserPageResponse;
+import org.aston.learning.stage2.dto.UserPatchRequest;
 import org.aston.learning.stage2.dto.UserRequest;
 import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
+import org.aston.learning.stage2.service.CoalescedLoadTimeoutException;
+import org.aston.learning.stage2.service.UserAlreadyExistsException;
 import org.aston.learning.stage2.service.UserService;
+import org.aston.learning.stage2.service.UserVersionMismatchException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.CollectionModel;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
 @RestController
 @RequestMapping("/api/users")
 @Tag(name = "User Management", description = "APIs for managing users")
 public class UserController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private final UserService userService;
+    private final UserLinkFactory links;
+    private final ObjectWriter exportWriter;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserLinkFactory links, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.links = links;
+        this.exportWriter = objectMapper.copy()
+                .addMixIn(UserResponse.class, ExportMixin.class)
+                .writerFor(UserResponse.class);
     }
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve a list of all users")
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
+    @Operation(summary = "Get all users",
+            description = "Retrieve users page by page, ordered by creation date. Pass the returned cursor to get the next page")
+    public ResponseEntity<UserPageResponse> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserPageResponse page = userService.getUsersPage(cursor, size);
+
+        // HATEOAS links
+        page.getUsers().forEach(user -> {
+            user.add(links.self(user.getId()));
+            user.add(links.update(user.getId()));
+            user.add(links.delete(user.getId()));
+        });
+
+        page.add(links.page(cursor, page.getSize(), IanaLinkRelations.SELF));
+        if (page.hasNext()) {
+            page.add(links.page(page.getNextCursor(), page.getSize(), IanaLinkRelations.NEXT));
+        }
+        page.add(links.createUser());
+
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get users by ids",
+            description = "Resolve up to " + UserService.MAX_BATCH_SIZE + " ids with one query, in request order; "
+                    + "ids that do not exist are listed as notFound")
+    public ResponseEntity<UserLookupResponse> getUsersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(withSelfLinks(userService.getUsersByIds(ids)));
+    }
+
+    // Same lookup for id lists too long for a query string
+    @PostMapping("/lookup")
+    @Operation(summary = "Get users by ids (request body)",
+            description = "Same as GET /api/users?ids=..., with the ids as a JSON array in the body")
+    public ResponseEntity<UserLookupResponse> lookupUsers(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(withSelfLinks(userService.getUsersByIds(ids)));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search users",
+            description = "Filter by name prefix, email domain, age range and creation window, sorted by createdAt "
+                    + "or name (append ,desc for descending). Pass the returned cursor to get the next page")
+    public ResponseEntity<UserPageResponse> searchUsers(
+            @Valid UserSearchRequest criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserPageResponse page = userService.searchUsers(criteria, cursor, size);
 
         // HATEOAS links
-        users.forEach(user -> {
-            user.add(linkTo(methodOn(UserController.class).getUserById(user.getId())).withSelfRel());
-            user.add(linkTo(methodOn(UserController.class).updateUser(user.getId(), null)).withRel("update"));
-            user.add(linkTo(methodOn(UserController.class).deleteUser(user.getId())).withRel("delete"));
+        page.getUsers().forEach(user -> {
+            user.add(links.self(user.getId()));
+            user.add(links.update(user.getId()));
+            user.add(links.delete(user.getId()));
         });
 
-        CollectionModel<UserResponse> collectionModel = CollectionModel.of(users);
-        collectionModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel());
-        collectionModel.add(linkTo(methodOn(UserController.class).createUser(null)).withRel("create-user"));
+        page.add(links.searchPage(cursor, IanaLinkRelations.SELF));
+        if (page.hasNext()) {
+            page.add(links.searchPage(page.getNextCursor(), IanaLinkRelations.NEXT));
+        }
 
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(summary = "Export all users", description = "Stream every user as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> userService.exportUsers(user -> {
+            try {
+                outputStream.write(exportWriter.writeValueAsBytes(user));
+                outputStream.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
+    }
+
+    @GetMapping("/by-email")
+    @Operation(summary = "Get user by email", description = "Retrieve a specific user by their email address")
+    public ResponseEntity<UserResponse> getUserByEmail(@RequestParam String email) {
+        UserResponse user = userService.getUserByEmail(email);
+
+        // HATEOAS links
+        user.add(links.self(user.getId()));
+        user.add(links.update(user.getId()));
+        user.add(links.delete(user.getId()));
+
+        return ResponseEntity.ok().eTag(etagOf(user)).body(user);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID", description = "Retrieve a specific user by their ID")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, WebRequest request) {
         UserResponse user = userService.getUserById(id);
+        String etag = etagOf(user);
+        // Answer If-None-Match before adding links or serializing anything
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         // HATEOAS links
-        user.add(linkTo(methodOn(UserController.class).getUserById(id)).withSelfRel());
-        user.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("all-users"));
-        user.add(linkTo(methodOn(UserController.class).updateUser(id, null)).withRel("update"));
-        user.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
+        user.add(links.self(id));
+        user.add(links.allUsers(UserService.DEFAULT_PAGE_SIZE));
+        user.add(links.update(id));
+        user.add(links.delete(id));
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(etag).body(user);
     }
 
     @PostMapping
@@ -67,37 +174,129 @@ public class UserController {
         UserResponse createdUser = userService.createUser(userRequest);
 
         // HATEOAS links
-        createdUser.add(linkTo(methodOn(UserController.class).getUserById(createdUser.getId())).withSelfRel());
-        createdUser.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("all-users"));
-        createdUser.add(linkTo(methodOn(UserController.class).updateUser(createdUser.getId(), null)).withRel("update"));
+        createdUser.add(links.self(createdUser.getId()));
+        createdUser.add(links.allUsers(UserService.DEFAULT_PAGE_SIZE));
+        createdUser.add(links.update(createdUser.getId()));
 
         return ResponseEntity
-                .created(linkTo(methodOn(UserController.class).getUserById(createdUser.getId())).toUri())
+                .created(links.userUri(createdUser.getId()))
+                .eTag(etagOf(createdUser))
                 .body(createdUser);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create users in bulk",
+            description = "Create up to " + UserService.MAX_BATCH_SIZE + " users at once and get a result for every item")
+    public ResponseEntity<UserBatchResponse> createUsers(@RequestBody List<UserRequest> userRequests) {
+        UserBatchResponse response = userService.createUsers(userRequests);
+
+        // HATEOAS links
+        response.getResults().stream()
+                .filter(result -> result.getUser() != null)
+                .forEach(result -> result.getUser()
+                        .add(links.self(result.getUser().getId())));
+
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update user", description = "Update an existing user's information")
     public ResponseEntity<UserResponse> updateUser(
             @PathVariable Long id,
-            @Valid @RequestBody UserRequest userRequest) {
-        UserResponse updatedUser = userService.updateUser(id, userRequest);
+            @Valid @RequestBody UserRequest userRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserResponse updatedUser = userService.updateUser(id, userRequest, expectedVersion(id, ifMatch));
+
+        // HATEOAS links
+        updatedUser.add(links.self(id));
+        updatedUser.add(links.allUsers(UserService.DEFAULT_PAGE_SIZE));
+        updatedUser.add(links.delete(id));
+
+        return ResponseEntity.ok().eTag(etagOf(updatedUser)).body(updatedUser);
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON_VALUE})
+    @Operation(summary = "Patch user", description = "Change only the provided fields of an existing user")
+    public ResponseEntity<UserResponse> patchUser(
+            @PathVariable Long id,
+            @Valid @RequestBody UserPatchRequest patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserResponse patchedUser = userService.patchUser(id, patch, expectedVersion(id, ifMatch));
 
         // HATEOAS links
-        updatedUser.add(linkTo(methodOn(UserController.class).getUserById(id)).withSelfRel());
-        updatedUser.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("all-users"));
-        updatedUser.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
+        patchedUser.add(links.self(id));
+        patchedUser.add(links.allUsers(UserService.DEFAULT_PAGE_SIZE));
+        patchedUser.add(links.delete(id));
 
-        return ResponseEntity.ok(updatedUser);
+        return ResponseEntity.ok().eTag(etagOf(patchedUser)).body(patchedUser);
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete user", description = "Delete a user by their ID")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.deleteUser(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    @Operation(summary = "Delete users", description = "Delete up to " + UserService.MAX_BATCH_SIZE
+            + " users by id in one statement; ids that do not exist are listed as notFound")
+    public ResponseEntity<UserBulkDeleteResponse> deleteUsers(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.deleteUsers(ids));
+    }
+
+    private UserLookupResponse withSelfLinks(UserLookupResponse response) {
+        response.getUsers().forEach(user -> user.add(links.self(user.getId())));
+        return response;
+    }
+
+    // Strong ETag from the @Version column
+    private static String etagOf(UserResponse user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    // Accepts "*" or a single strong ETag; a weak or unparseable tag can never match strongly
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new UserVersionMismatchException(id);
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new UserVersionMismatchException(id);
+        }
+    }
+
+    // Export lines are plain data, no hypermedia
+    @JsonIgnoreProperties("links")
+    private abstract static class ExportMixin {}
+
+    @ExceptionHandler(UserAlreadyExistsException.class)
+    public ResponseEntity<String> handleUserAlreadyExists(UserAlreadyExistsException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(UserVersionMismatchException.class)
+    public ResponseEntity<String> handleVersionMismatch(UserVersionMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentModification(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("User was modified by another request");
+    }
+
+    @ExceptionHandler(CoalescedLoadTimeoutException.class)
+    public ResponseEntity<String> handleCoalescedLoadTimeout(CoalescedLoadTimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
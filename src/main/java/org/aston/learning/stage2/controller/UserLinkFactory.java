@@ -0,0 +1,149 @@
+package org.aston.learning.stage2.controller;
+
+import org.aston.learning.stage2.dto.UserPatchRequest;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Builds the {@link UserController} links without {@code methodOn} proxies.
+ * Route templates are read from the mapping annotations once; the scheme/host/context part is
+ * resolved once per request. Each link is then plain string concatenation.
+ */
+@Component
+public class UserLinkFactory {
+
+    private static final String BASE_URI_ATTRIBUTE = UserLinkFactory.class.getName() + ".baseUri";
+
+    private final Route users;
+    private final Route user;
+
+    public UserLinkFactory() {
+        this.users = Route.of(UserController.class, "getAllUsers", String.class, int.class);
+        this.user = Route.of(UserController.class, "getUserById", Long.class, WebRequest.class);
+        // update/patch/delete share the single-user route, fail fast if a mapping ever diverges
+        Route.of(UserController.class, "updateUser", Long.class, UserRequest.class, String.class)
+                .requireSameAs(user);
+        Route.of(UserController.class, "patchUser", Long.class, UserPatchRequest.class, String.class)
+                .requireSameAs(user);
+        Route.of(UserController.class, "deleteUser", Long.class, String.class).requireSameAs(user);
+        Route.of(UserController.class, "createUser", UserRequest.class)
+                .requireSameAs(users);
+        Route.of(UserController.class, "deleteUsers", List.class).requireSameAs(users);
+        Route.of(UserController.class, "getUsersByIds", List.class).requireSameAs(users);
+    }
+
+    public Link self(Long id) {
+        return Link.of(userHref(id), IanaLinkRelations.SELF);
+    }
+
+    public Link update(Long id) {
+        return Link.of(userHref(id), "update");
+    }
+
+    public Link delete(Long id) {
+        return Link.of(userHref(id), "delete");
+    }
+
+    public Link allUsers(int size) {
+        return Link.of(baseUri() + users.expand(null) + "?size=" + size, "all-users");
+    }
+
+    public Link page(String cursor, int size, LinkRelation rel) {
+        StringBuilder href = new StringBuilder(baseUri()).append(users.expand(null)).append('?');
+        if (cursor != null) {
+            href.append("cursor=").append(UriUtils.encodeQueryParam(cursor, StandardCharsets.UTF_8)).append('&');
+        }
+        href.append("size=").append(size);
+        return Link.of(href.toString(), rel);
+    }
+
+    // Search pages keep every filter of the current request, only the cursor changes
+    public Link searchPage(String cursor, LinkRelation rel) {
+        UriComponentsBuilder href = ServletUriComponentsBuilder.fromCurrentRequest();
+        if (cursor == null) {
+            href.replaceQueryParam("cursor");
+        } else {
+            href.replaceQueryParam("cursor", UriUtils.encodeQueryParam(cursor, StandardCharsets.UTF_8));
+        }
+        return Link.of(href.build(true).toUriString(), rel);
+    }
+
+    public Link createUser() {
+        return Link.of(baseUri() + users.expand(null), "create-user");
+    }
+
+    public URI userUri(Long id) {
+        return URI.create(userHref(id));
+    }
+
+    private String userHref(Long id) {
+        return baseUri() + user.expand(String.valueOf(id));
+    }
+
+    private String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+        }
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    /** A mapped path split around its single path variable, if any. */
+    private record Route(String prefix, String suffix, boolean hasVariable) {
+
+        static Route of(Class<?> controller, String methodName, Class<?>... parameterTypes) {
+            Method method = ReflectionUtils.findMethod(controller, methodName, parameterTypes);
+            if (method == null) {
+                throw new IllegalStateException("No handler method " + controller.getSimpleName() + "." + methodName);
+            }
+            String path = pathOf(AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class))
+                    + pathOf(AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class));
+
+            int open = path.indexOf('{');
+            if (open < 0) {
+                return new Route(path, "", false);
+            }
+            int close = path.indexOf('}', open);
+            if (close < 0 || path.indexOf('{', close) >= 0) {
+                throw new IllegalStateException("Unsupported route template " + path);
+            }
+            return new Route(path.substring(0, open), path.substring(close + 1), true);
+        }
+
+        private static String pathOf(RequestMapping mapping) {
+            return mapping == null || mapping.path().length == 0 ? "" : mapping.path()[0];
+        }
+
+        String expand(String variable) {
+            return hasVariable ? prefix + variable + suffix : prefix;
+        }
+
+        void requireSameAs(Route other) {
+            if (!equals(other)) {
+                throw new IllegalStateException("Route " + this + " differs from " + other);
+            }
+        }
+    }
+}
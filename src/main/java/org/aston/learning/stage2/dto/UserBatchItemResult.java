@@ -0,0 +1,44 @@
+package org.aston.learning.stage2.dto;
+
+import java.util.List;
+
+public class UserBatchItemResult {
+
+    public enum Status { CREATED, INVALID, DUPLICATE }
+
+    private int index;
+    private Status status;
+    private UserResponse user;
+    private List<String> errors;
+
+    // Constructs
+    public UserBatchItemResult() {}
+
+    public UserBatchItemResult(int index, Status status, UserResponse user, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.user = user;
+        this.errors = errors;
+    }
+
+    public static UserBatchItemResult created(int index, UserResponse user) {
+        return new UserBatchItemResult(index, Status.CREATED, user, List.of());
+    }
+
+    public static UserBatchItemResult failed(int index, Status status, List<String> errors) {
+        return new UserBatchItemResult(index, status, null, errors);
+    }
+
+    // Getters and setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public UserResponse getUser() { return user; }
+    public void setUser(UserResponse user) { this.user = user; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+}
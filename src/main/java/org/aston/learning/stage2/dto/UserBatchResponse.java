@@ -0,0 +1,32 @@
+package org.aston.learning.stage2.dto;
+
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+public class UserBatchResponse extends RepresentationModel<UserBatchResponse> {
+    private int created;
+    private int failed;
+    private List<UserBatchItemResult> results;
+
+    // Constructs
+    public UserBatchResponse() {}
+
+    public UserBatchResponse(List<UserBatchItemResult> results) {
+        this.results = results;
+        this.created = (int) results.stream()
+                .filter(result -> result.getStatus() == UserBatchItemResult.Status.CREATED)
+                .count();
+        this.failed = results.size() - created;
+    }
+
+    // Getters and setters
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<UserBatchItemResult> getResults() { return results; }
+    public void setResults(List<UserBatchItemResult> results) { this.results = results; }
+}
@@ -0,0 +1,23 @@
+package org.aston.learning.stage2.dto;
+
+import java.util.List;
+
+public class UserBulkDeleteResponse {
+    private List<Long> deleted;
+    private List<Long> notFound;
+
+    // Constructs
+    public UserBulkDeleteResponse() {}
+
+    public UserBulkDeleteResponse(List<Long> deleted, List<Long> notFound) {
+        this.deleted = deleted;
+        this.notFound = notFound;
+    }
+
+    // Getters and setters
+    public List<Long> getDeleted() { return deleted; }
+    public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+
+    public List<Long> getNotFound() { return notFound; }
+    public void setNotFound(List<Long> notFound) { this.notFound = notFound; }
+}
@@ -0,0 +1,25 @@
+package org.aston.learning.stage2.dto;
+
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+public class UserLookupResponse extends RepresentationModel<UserLookupResponse> {
+    private List<UserResponse> users;
+    private List<Long> notFound;
+
+    // Constructs
+    public UserLookupResponse() {}
+
+    public UserLookupResponse(List<UserResponse> users, List<Long> notFound) {
+        this.users = users;
+        this.notFound = notFound;
+    }
+
+    // Getters and setters
+    public List<UserResponse> getUsers() { return users; }
+    public void setUsers(List<UserResponse> users) { this.users = users; }
+
+    public List<Long> getNotFound() { return notFound; }
+    public void setNotFound(List<Long> notFound) { this.notFound = notFound; }
+}
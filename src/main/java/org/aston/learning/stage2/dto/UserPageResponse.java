@@ -0,0 +1,32 @@
+package org.aston.learning.stage2.dto;
+
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+public class UserPageResponse extends RepresentationModel<UserPageResponse> {
+    private List<UserResponse> users;
+    private String nextCursor;
+    private int size;
+
+    // Constructs
+    public UserPageResponse() {}
+
+    public UserPageResponse(List<UserResponse> users, String nextCursor, int size) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    // Getters and setters
+    public List<UserResponse> getUsers() { return users; }
+    public void setUsers(List<UserResponse> users) { this.users = users; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -0,0 +1,49 @@
+package org.aston.learning.stage2.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Partial update: only non-null fields are changed, absent and null fields keep their value.
+ */
+public class UserPatchRequest {
+
+    @Size(max = 100, message = "Name must be at most 100 characters")
+    @Pattern(regexp = ".*\\S.*", message = "Name must not be blank")
+    private String name;
+
+    @Size(max = 150, message = "Email must be at most 150 characters")
+    @Email(message = "Email should be valid")
+    @Pattern(regexp = ".*\\S.*", message = "Email must not be blank")
+    private String email;
+
+    @PositiveOrZero(message = "Age must be positive or zero")
+    private Integer age;
+
+    // Constructs
+    public UserPatchRequest() {}
+
+    public UserPatchRequest(String name, String email, Integer age) {
+        this.name = name;
+        this.email = email;
+        this.age = age;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return name == null && email == null && age == null;
+    }
+
+    // Getters and setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public Integer getAge() { return age; }
+    public void setAge(Integer age) { this.age = age; }
+}
@@ -1,5 +1,6 @@
 package org.aston.learning.stage2.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.server.core.Relation;
 
@@ -12,6 +13,9 @@ public class UserResponse extends RepresentationModel<UserResponse> {
     private String email;
     private Integer age;
     private LocalDateTime createdAt;
+    // Sent as the ETag header, not in the body
+    @JsonIgnore
+    private Long version;
 
     // Constructs
     public UserResponse() {}
@@ -39,4 +43,7 @@ public class UserResponse extends RepresentationModel<UserResponse> {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.aston.learning.stage2.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of GET /api/users/search. Every field is optional and the given ones are combined with AND.
+ */
+public class UserSearchRequest {
+
+    @Size(min = 1, max = 100, message = "Name prefix must be between 1 and 100 characters")
+    private String namePrefix;
+
+    @Size(min = 1, max = 150, message = "Email domain must be between 1 and 150 characters")
+    private String emailDomain;
+
+    @PositiveOrZero(message = "Minimum age must be positive or zero")
+    private Integer minAge;
+
+    @PositiveOrZero(message = "Maximum age must be positive or zero")
+    private Integer maxAge;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdAfter;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdBefore;
+
+    // createdAt or name, optionally followed by ",desc"
+    private String sort;
+
+    // Constructs
+    public UserSearchRequest() {}
+
+    // Getters and setters
+    public String getNamePrefix() { return namePrefix; }
+    public void setNamePrefix(String namePrefix) { this.namePrefix = namePrefix; }
+
+    public String getEmailDomain() { return emailDomain; }
+    public void setEmailDomain(String emailDomain) { this.emailDomain = emailDomain; }
+
+    public Integer getMinAge() { return minAge; }
+    public void setMinAge(Integer minAge) { this.minAge = minAge; }
+
+    public Integer getMaxAge() { return maxAge; }
+    public void setMaxAge(Integer maxAge) { this.maxAge = maxAge; }
+
+    public LocalDateTime getCreatedAfter() { return createdAfter; }
+    public void setCreatedAfter(LocalDateTime createdAfter) { this.createdAfter = createdAfter; }
+
+    public LocalDateTime getCreatedBefore() { return createdBefore; }
+    public void setCreatedBefore(LocalDateTime createdBefore) { this.createdBefore = createdBefore; }
+
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+}
@@ -1,10 +1,19 @@
 package org.aston.learning.stage2.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
-@Table(name = "users")
+// Each index backs one search filter or sort, see UserSpecifications. These only apply with ddl-auto;
+// existing databases get them from SearchIndexInitializer
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_users_name_id", columnList = "name, id"),
+        @Index(name = "idx_users_email_domain_created_at_id", columnList = "email_domain, created_at, id"),
+        @Index(name = "idx_users_age_id", columnList = "age, id")
+})
 public class User {
 
     @Id
@@ -20,19 +29,37 @@ public class User {
     @Column(name = "age")
     private Integer age;
 
+    // Derived from email so a domain filter is an index lookup instead of a LIKE '%@domain'
+    @Column(name = "email_domain", length = 150)
+    private String emailDomain;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Optimistic lock, also served as the ETag of GET /api/users/{id}
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructs
     public User() {}
 
     public User(String name, String email, Integer age) {
         this.name = name;
         this.email = email;
+        this.emailDomain = emailDomainOf(email);
         this.age = age;
         this.createdAt = LocalDateTime.now();
     }
 
+    public static String emailDomainOf(String email) {
+        if (email == null) {
+            return null;
+        }
+        return email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,7 +68,12 @@ public class User {
     public void setName(String name) { this.name = name; }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailDomain = emailDomainOf(email);
+    }
+
+    public String getEmailDomain() { return emailDomain; }
 
     public Integer getAge() { return age; }
     public void setAge(Integer age) { this.age = age; }
@@ -49,6 +81,9 @@ public class User {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
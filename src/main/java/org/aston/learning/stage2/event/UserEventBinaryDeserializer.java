@@ -0,0 +1,35 @@
+package org.aston.learning.stage2.event;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link UserEvent}s written by {@link UserEventBinarySerializer} and, for the transition
+ * period, JSON ones written by the Spring JsonSerializer.
+ */
+public class UserEventBinaryDeserializer implements Deserializer<UserEvent> {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            if (data[0] == '{') {
+                return objectMapper.readValue(data, UserEvent.class);
+            }
+            return UserEventCodec.decode(data);
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new SerializationException("Cannot read user event from " + topic, ex);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.aston.learning.stage2.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Writes {@link UserEvent}s with {@link UserEventCodec}. Any other payload falls back to JSON.
+ */
+public class UserEventBinarySerializer implements Serializer<Object> {
+
+    private final JsonSerializer<Object> jsonFallback = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonFallback.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof UserEvent event) {
+            return UserEventCodec.encode(event);
+        }
+        return headers == null ? jsonFallback.serialize(topic, data) : jsonFallback.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonFallback.close();
+    }
+}
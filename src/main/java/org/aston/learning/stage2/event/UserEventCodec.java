@@ -0,0 +1,184 @@
+package org.aston.learning.stage2.event;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of {@link UserEvent}.
+ *
+ * <pre>
+ * version 1:
+ *   byte     format version (1)
+ *   byte     event type code: 1 = USER_CREATED, 2 = USER_DELETED, 0 = string follows
+ *   [string] event type, only for code 0
+ *   string   email
+ *   string   userName
+ *   varlong  timestamp seconds (zigzag, LocalDateTime read as UTC), 0 = no timestamp
+ *   varint   timestamp nanos
+ * string = varint (UTF-8 length + 1, 0 = null) followed by the UTF-8 bytes
+ * </pre>
+ * The first byte of a JSON document is '{', so it can never be mistaken for a version byte.
+ */
+public final class UserEventCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    private static final byte TYPE_CUSTOM = 0;
+    private static final byte TYPE_CREATED = 1;
+    private static final byte TYPE_DELETED = 2;
+    private static final String CREATED = "USER_CREATED";
+    private static final String DELETED = "USER_DELETED";
+
+    private UserEventCodec() {}
+
+    public static byte[] encode(UserEvent event) {
+        byte typeCode = typeCode(event.getEventType());
+        byte[] type = typeCode == TYPE_CUSTOM ? utf8(event.getEventType()) : null;
+        byte[] email = utf8(event.getEmail());
+        byte[] userName = utf8(event.getUserName());
+        LocalDateTime timestamp = event.getTimestamp();
+        long seconds = timestamp == null ? 0 : zigzag(timestamp.toEpochSecond(ZoneOffset.UTC)) + 1;
+        int nanos = timestamp == null ? 0 : timestamp.getNano();
+
+        int size = 2
+                + (typeCode == TYPE_CUSTOM ? stringSize(type) : 0)
+                + stringSize(email)
+                + stringSize(userName)
+                + varLongSize(seconds)
+                + varLongSize(nanos);
+
+        byte[] buffer = new byte[size];
+        int position = 0;
+        buffer[position++] = VERSION_1;
+        buffer[position++] = typeCode;
+        if (typeCode == TYPE_CUSTOM) {
+            position = writeString(buffer, position, type);
+        }
+        position = writeString(buffer, position, email);
+        position = writeString(buffer, position, userName);
+        position = writeVarLong(buffer, position, seconds);
+        writeVarLong(buffer, position, nanos);
+        return buffer;
+    }
+
+    public static UserEvent decode(byte[] data) {
+        if (data.length < 2) {
+            throw new IllegalArgumentException("Truncated user event");
+        }
+        if (data[0] != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported user event format version " + data[0]);
+        }
+        Reader reader = new Reader(data, 1);
+        byte typeCode = data[reader.position++];
+
+        UserEvent event = new UserEvent();
+        event.setEventType(switch (typeCode) {
+            case TYPE_CREATED -> CREATED;
+            case TYPE_DELETED -> DELETED;
+            case TYPE_CUSTOM -> reader.readString();
+            default -> throw new IllegalArgumentException("Unknown user event type code " + typeCode);
+        });
+        event.setEmail(reader.readString());
+        event.setUserName(reader.readString());
+        long seconds = reader.readVarLong();
+        int nanos = (int) reader.readVarLong();
+        if (seconds != 0) {
+            event.setTimestamp(LocalDateTime.ofEpochSecond(unzigzag(seconds - 1), nanos, ZoneOffset.UTC));
+        }
+        return event;
+    }
+
+    private static byte typeCode(String eventType) {
+        if (CREATED.equals(eventType)) {
+            return TYPE_CREATED;
+        }
+        if (DELETED.equals(eventType)) {
+            return TYPE_DELETED;
+        }
+        return TYPE_CUSTOM;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return value == null ? 1 : varLongSize(value.length + 1L) + value.length;
+    }
+
+    private static int writeString(byte[] buffer, int position, byte[] value) {
+        if (value == null) {
+            buffer[position] = 0;
+            return position + 1;
+        }
+        position = writeVarLong(buffer, position, value.length + 1L);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        return position + value.length;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated user event");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in user event");
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            int size = (int) (length - 1);
+            if (size < 0 || position + size > data.length) {
+                throw new IllegalArgumentException("Truncated user event");
+            }
+            String value = new String(data, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+    }
+}
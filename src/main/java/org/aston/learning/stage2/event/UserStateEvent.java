@@ -0,0 +1,64 @@
+package org.aston.learning.stage2.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Full state of one user after a committed write, keyed by id on the user-state topic.
+ * A delete carries only the id with {@code deleted = true}. Consumers keep the highest
+ * {@code version} per id, so replays and reordering across producers are harmless.
+ */
+public class UserStateEvent {
+    private Long id;
+    private String name;
+    private String email;
+    private Integer age;
+    private LocalDateTime createdAt;
+    private Long version;
+    private boolean deleted;
+    // Epoch millis of the write, the consumer's lag is measured against it
+    private long writtenAt;
+
+    // Constructs
+    public UserStateEvent() {}
+
+    public UserStateEvent(Long id, String name, String email, Integer age, LocalDateTime createdAt, Long version) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.writtenAt = System.currentTimeMillis();
+    }
+
+    public static UserStateEvent deleted(Long id) {
+        UserStateEvent event = new UserStateEvent(id, null, null, null, null, null);
+        event.setDeleted(true);
+        return event;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public Integer getAge() { return age; }
+    public void setAge(Integer age) { this.age = age; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    public long getWrittenAt() { return writtenAt; }
+    public void setWrittenAt(long writtenAt) { this.writtenAt = writtenAt; }
+}
@@ -0,0 +1,7 @@
+package org.aston.learning.stage2.repository;
+
+/**
+ * The columns of a removed row that the deletion event and cache/filter cleanup need.
+ */
+public record DeletedUser(Long id, String name, String email) {
+}
@@ -0,0 +1,9 @@
+package org.aston.learning.stage2.repository;
+
+import org.aston.learning.stage2.entity.User;
+
+/**
+ * Row state after {@link UserRepositoryCustom#patch}, plus the email it had before.
+ */
+public record PatchedUser(User user, String previousEmail) {
+}
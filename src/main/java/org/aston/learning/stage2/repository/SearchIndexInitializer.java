@@ -0,0 +1,97 @@
+package org.aston.learning.stage2.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off schema migration for the user search, applied in the background once the application is up
+ * (PostgreSQL only). Off by default: enable {@code user.search.initialize-schema} for a single run per
+ * deployment (one instance or a migration job), not on every instance.
+ * <ul>
+ *   <li>email_domain of rows written before the column existed, filled in small batches</li>
+ *   <li>the search indexes declared on {@code User}: those annotations only take effect with
+ *       {@code ddl-auto}, so this is what creates them on an existing database</li>
+ *   <li>idx_users_name_prefix on {@code lower(name) text_pattern_ops}: a plain index on name cannot
+ *       serve {@code LIKE 'x%'} under a non-C collation</li>
+ * </ul>
+ * Indexes are built CONCURRENTLY, so writes are not blocked. Every step is idempotent and cheap to
+ * re-run once done.
+ */
+@Component
+public class SearchIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private static final String BACKFILL_SQL =
+            "UPDATE users SET email_domain = lower(substring(email from '[^@]*$')) " +
+            "WHERE id IN (SELECT id FROM users WHERE email_domain IS NULL LIMIT ?)";
+
+    // Same names and columns as the @Index declarations on User
+    private static final List<String> INDEX_SQL = List.of(
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at_id ON users (created_at, id)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_id ON users (name, id)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_domain_created_at_id "
+                    + "ON users (email_domain, created_at, id)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_age_id ON users (age, id)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_prefix ON users (lower(name) text_pattern_ops)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final int backfillBatchSize;
+
+    @Autowired
+    public SearchIndexInitializer(JdbcTemplate jdbcTemplate,
+                                  @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                  @Value("${user.search.initialize-schema:false}") boolean enabled,
+                                  @Value("${user.search.backfill-batch-size:10000}") int backfillBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            taskExecutor.execute(this::initialize);
+        }
+    }
+
+    void initialize() {
+        try {
+            Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            if (!Boolean.TRUE.equals(postgres)) {
+                return;
+            }
+            long backfilled = 0;
+            int updated;
+            do {
+                updated = jdbcTemplate.update(BACKFILL_SQL, backfillBatchSize);
+                backfilled += updated;
+            } while (updated > 0);
+            if (backfilled > 0) {
+                logger.info("Backfilled email_domain of {} users", backfilled);
+            }
+            // Autocommit connection: CREATE INDEX CONCURRENTLY cannot run inside a transaction
+            INDEX_SQL.forEach(jdbcTemplate::execute);
+            logger.info("User search schema initialized");
+        } catch (DataAccessException ex) {
+            // Search still works without them, only slower
+            logger.warn("Could not initialize the user search schema", ex);
+        }
+    }
+}
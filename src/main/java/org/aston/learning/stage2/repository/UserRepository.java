@@ -1,17 +1,69 @@
 package org.aston.learning.stage2.repository;
 
+import jakarta.persistence.QueryHint;
 import org.aston.learning.stage2.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+    // Read-only paths select straight into UserView, writes keep using the entity
+    String VIEW = "SELECT new org.aston.learning.stage2.repository.UserView(" +
+            "u.id, u.name, u.email, u.age, u.createdAt, u.version) FROM User u ";
 
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
 
     boolean existsByEmailAndIdNot(String email, Long id);
-}
\ No newline at end of file
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query(VIEW + "WHERE u.id = :id")
+    Optional<UserView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW + "WHERE u.email = :email")
+    Optional<UserView> findViewByEmail(@Param("email") String email);
+
+    @Query(VIEW)
+    List<UserView> findAllViews();
+
+    // One primary key IN (...) lookup; rows come back in no particular order
+    @Query(VIEW + "WHERE u.id IN :ids")
+    List<UserView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination on (created_at, id), backed by idx_users_created_at_id
+    @Query(VIEW + "ORDER BY u.createdAt ASC, u.id ASC")
+    List<UserView> findFirstPage(Pageable pageable);
+
+    @Query(VIEW +
+            "WHERE u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id) " +
+            "ORDER BY u.createdAt ASC, u.id ASC")
+    List<UserView> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+
+    // Server-side cursor for exports; must be consumed inside a transaction and closed.
+    // Views are not managed, so memory stays flat without detaching anything
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "ORDER BY u.id ASC")
+    Stream<UserView> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+}
@@ -0,0 +1,43 @@
+package org.aston.learning.stage2.repository;
+
+import org.aston.learning.stage2.entity.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserts all users with JDBC batching and sets the generated ids on the given instances.
+     * The users are not attached to the persistence context. Inside a transaction the inserts run
+     * under a savepoint: on a constraint violation they are rolled back and the transaction stays usable.
+     */
+    List<User> insertAll(List<User> users);
+
+    /**
+     * Sets the non-null fields and bumps the version, in a single UPDATE ... RETURNING on PostgreSQL.
+     * Empty when no row has this id (and, if {@code expectedVersion} is given, this version).
+     * Email uniqueness is left to the constraint: a duplicate surfaces as DataIntegrityViolationException.
+     */
+    Optional<PatchedUser> patch(Long id, String name, String email, Integer age, Long expectedVersion);
+
+    /**
+     * Removes the row and returns what it held, in a single DELETE ... RETURNING on PostgreSQL.
+     * Empty when no row has this id (and, if {@code expectedVersion} is given, this version).
+     */
+    Optional<DeletedUser> deleteReturning(Long id, Long expectedVersion);
+
+    /**
+     * Removes every existing row among {@code ids} in one statement; missing ids are skipped.
+     */
+    List<DeletedUser> deleteAllReturning(Collection<Long> ids);
+
+    /**
+     * At most {@code limit} users matching {@code spec}, in {@code sort} order, as read-only views.
+     * Unlike JpaSpecificationExecutor's paged variant this never issues a count query.
+     */
+    List<UserView> findSlice(Specification<User> spec, Sort sort, int limit);
+}
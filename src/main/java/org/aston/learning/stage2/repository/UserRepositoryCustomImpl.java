@@ -0,0 +1,249 @@
+package org.aston.learning.stage2.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.aston.learning.stage2.entity.User;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Users use IDENTITY ids, which makes Hibernate fall back to one INSERT per entity.
+ * Bulk inserts therefore go through JdbcTemplate on the transaction's connection instead.
+ * Partial updates and deletes also bypass the persistence context, so they are one statement
+ * instead of load, dirty-check and flush.
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (name, email, email_domain, age, created_at, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private static final String SELECT_COLUMNS = "id, name, email, age, created_at, version";
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        // Also derives email_domain, which is therefore not selected
+        user.setEmail(rs.getString("email"));
+        user.setAge(rs.getObject("age", Integer.class));
+        user.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        user.setVersion(rs.getLong("version"));
+        return user;
+    };
+
+    private static final RowMapper<DeletedUser> DELETED_ROW_MAPPER = (rs, rowNum) ->
+            new DeletedUser(rs.getLong("id"), rs.getString("name"), rs.getString("email"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<User> insertAll(List<User> users) {
+        return jdbcTemplate.execute((ConnectionCallback<List<User>>) connection -> {
+            if (connection.getAutoCommit()) {
+                insertChunks(users);
+                return users;
+            }
+            // PostgreSQL aborts the whole transaction on an error, the savepoint lets the caller re-check and retry
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                insertChunks(users);
+            } catch (DataIntegrityViolationException ex) {
+                connection.rollback(savepoint);
+                throw ex;
+            }
+            connection.releaseSavepoint(savepoint);
+            return users;
+        });
+    }
+
+    @Override
+    public Optional<PatchedUser> patch(Long id, String name, String email, Integer age, Long expectedVersion) {
+        StringBuilder set = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        appendAssignment(set, args, "name", name);
+        appendAssignment(set, args, "email", email);
+        appendAssignment(set, args, "email_domain", User.emailDomainOf(email));
+        appendAssignment(set, args, "age", age);
+
+        return isPostgres()
+                ? patchReturning(id, set, args, expectedVersion)
+                : patchPortable(id, set, args, expectedVersion);
+    }
+
+    // One round trip: the FROM sub-select locks the row and hands back the email before the change
+    private Optional<PatchedUser> patchReturning(Long id, StringBuilder set, List<Object> args, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE users u SET ").append(set).append("version = u.version + 1")
+                .append(" FROM (SELECT id, email FROM users WHERE id = ? FOR UPDATE) old WHERE u.id = old.id");
+        args.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND u.version = ?");
+            args.add(expectedVersion);
+        }
+        sql.append(" RETURNING u.id, u.name, u.email, u.age, u.created_at, u.version, old.email AS previous_email");
+
+        List<PatchedUser> rows = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new PatchedUser(USER_ROW_MAPPER.mapRow(rs, rowNum), rs.getString("previous_email")),
+                args.toArray());
+        return rows.stream().findFirst();
+    }
+
+    private Optional<PatchedUser> patchPortable(Long id, StringBuilder set, List<Object> args, Long expectedVersion) {
+        List<String> previousEmail = jdbcTemplate.queryForList("SELECT email FROM users WHERE id = ?", String.class, id);
+        if (previousEmail.isEmpty()) {
+            return Optional.empty();
+        }
+        StringBuilder sql = new StringBuilder("UPDATE users SET ").append(set).append("version = version + 1")
+                .append(" WHERE id = ?");
+        args.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = ?");
+            args.add(expectedVersion);
+        }
+        if (jdbcTemplate.update(sql.toString(), args.toArray()) == 0) {
+            return Optional.empty();
+        }
+        User user = jdbcTemplate.queryForObject("SELECT " + SELECT_COLUMNS + " FROM users WHERE id = ?",
+                USER_ROW_MAPPER, id);
+        return Optional.of(new PatchedUser(user, previousEmail.get(0)));
+    }
+
+    @Override
+    public Optional<DeletedUser> deleteReturning(Long id, Long expectedVersion) {
+        String where = expectedVersion == null ? "id = ?" : "id = ? AND version = ?";
+        Object[] args = expectedVersion == null ? new Object[] {id} : new Object[] {id, expectedVersion};
+        return deleteWhere(where, args).stream().findFirst();
+    }
+
+    @Override
+    public List<DeletedUser> deleteAllReturning(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String where = "id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return deleteWhere(where, ids.toArray());
+    }
+
+    @Override
+    public List<UserView> findSlice(Specification<User> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserView> query = cb.createQuery(UserView.class);
+        Root<User> root = query.from(User.class);
+        query.select(cb.construct(UserView.class, root.get("id"), root.get("name"), root.get("email"),
+                root.get("age"), root.get("createdAt"), root.get("version")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<DeletedUser> deleteWhere(String where, Object[] args) {
+        if (isPostgres()) {
+            return jdbcTemplate.query("DELETE FROM users WHERE " + where + " RETURNING id, name, email",
+                    DELETED_ROW_MAPPER, args);
+        }
+        // Lock first so the rows read are exactly the rows removed
+        List<DeletedUser> rows = jdbcTemplate.query("SELECT id, name, email FROM users WHERE " + where + " FOR UPDATE",
+                DELETED_ROW_MAPPER, args);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM users WHERE " + where, args);
+        }
+        return rows;
+    }
+
+    private static void appendAssignment(StringBuilder set, List<Object> args, String column, Object value) {
+        if (value != null) {
+            set.append(column).append(" = ?, ");
+            args.add(value);
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+
+    private void insertChunks(List<User> users) {
+        for (int from = 0; from < users.size(); from += JDBC_BATCH_SIZE) {
+            insertChunk(users.subList(from, Math.min(from + JDBC_BATCH_SIZE, users.size())));
+        }
+    }
+
+    private void insertChunk(List<User> chunk) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = chunk.get(i);
+                        if (user.getCreatedAt() == null) {
+                            user.setCreatedAt(LocalDateTime.now());
+                        }
+                        ps.setString(1, user.getName());
+                        ps.setString(2, user.getEmail());
+                        ps.setString(3, User.emailDomainOf(user.getEmail()));
+                        if (user.getAge() == null) {
+                            ps.setNull(4, Types.INTEGER);
+                        } else {
+                            ps.setInt(4, user.getAge());
+                        }
+                        ps.setObject(5, user.getCreatedAt());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            chunk.get(i).setVersion(0L);
+        }
+    }
+}
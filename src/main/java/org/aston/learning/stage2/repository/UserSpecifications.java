@@ -0,0 +1,76 @@
+package org.aston.learning.stage2.repository;
+
+import jakarta.persistence.criteria.Path;
+import org.aston.learning.stage2.entity.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Search predicates over users. Each one is shaped to match an index:
+ * <ul>
+ *   <li>name prefix - {@code lower(name) LIKE 'x%'}, idx_users_name_prefix (PostgreSQL, see SearchIndexInitializer)</li>
+ *   <li>email domain - equality on email_domain, idx_users_email_domain_created_at_id</li>
+ *   <li>age range - idx_users_age_id</li>
+ *   <li>creation range - idx_users_created_at_id</li>
+ * </ul>
+ * Keyset conditions are written as {@code col > v OR (col = v AND id > last)} over the
+ * {@code (col, id)} index of the sort column.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> namePrefix(String prefix) {
+        String pattern = escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    public static Specification<User> emailDomain(String domain) {
+        String normalized = (domain.startsWith("@") ? domain.substring(1) : domain).toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(root.get("emailDomain"), normalized);
+    }
+
+    public static Specification<User> ageAtLeast(int minAge) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge);
+    }
+
+    public static Specification<User> ageAtMost(int maxAge) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge);
+    }
+
+    // Inclusive lower bound
+    public static Specification<User> createdFrom(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    // Exclusive upper bound, so consecutive windows never overlap
+    public static Specification<User> createdBefore(LocalDateTime before) {
+        return (root, query, cb) -> cb.lessThan(root.get("createdAt"), before);
+    }
+
+    public static Specification<User> afterCreatedAt(LocalDateTime createdAt, Long id, boolean descending) {
+        return after("createdAt", createdAt, id, descending);
+    }
+
+    public static Specification<User> afterName(String name, Long id, boolean descending) {
+        return after("name", name, id, descending);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<User> after(String attribute, T value, Long id,
+                                                                               boolean descending) {
+        return (root, query, cb) -> {
+            Path<T> path = root.get(attribute);
+            Path<Long> idPath = root.get("id");
+            return descending
+                    ? cb.or(cb.lessThan(path, value), cb.and(cb.equal(path, value), cb.lessThan(idPath, id)))
+                    : cb.or(cb.greaterThan(path, value), cb.and(cb.equal(path, value), cb.greaterThan(idPath, id)));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,10 @@
+package org.aston.learning.stage2.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a user, selected column by column with a JPQL constructor expression.
+ * Never managed, so reads skip the persistence context entry and the dirty-checking snapshot.
+ */
+public record UserView(Long id, String name, String email, Integer age, LocalDateTime createdAt, Long version) {
+}
@@ -0,0 +1,8 @@
+package org.aston.learning.stage2.service;
+
+public class CoalescedLoadTimeoutException extends RuntimeException {
+
+    public CoalescedLoadTimeoutException(Object key) {
+        super("Timed out waiting for the in-flight load of " + key);
+    }
+}
@@ -0,0 +1,198 @@
+package org.aston.learning.stage2.service;
+
+import org.aston.learning.stage2.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory Bloom filter of known emails. A negative answer means the email is definitely
+ * not in this instance's view of the table, so the uniqueness query can be skipped.
+ * The unique constraint on users.email stays the real guard: a miss caused by another instance's
+ * insert or by a rebuild race still ends in a constraint violation. Single writes report it as a conflict,
+ * batches then re-check every email and report only the taken ones as duplicates.
+ * Bloom filters cannot forget, so deletes are only counted and trigger a background rebuild.
+ */
+@Component
+public class EmailBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final double staleRatio;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private volatile Bits current;
+    private volatile Bits next;
+
+    @Autowired
+    public EmailBloomFilter(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            @Value("${user.email-filter.enabled:false}") boolean enabled,
+                            @Value("${user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${user.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${user.email-filter.stale-ratio:0.1}") double staleRatio) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.staleRatio = staleRatio;
+    }
+
+    /** False only if the email is definitely unknown; true while the filter is disabled or not built yet. */
+    public boolean mightContain(String email) {
+        Bits bits = current;
+        return !enabled || bits == null || bits.mightContain(email);
+    }
+
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        // Write to the filter being built too, so a swap never loses a fresh email
+        Bits building = next;
+        if (building != null) {
+            building.put(email);
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(email);
+        }
+    }
+
+    public void remove(String email) {
+        if (!enabled) {
+            return;
+        }
+        Bits bits = current;
+        if (bits != null && staleEntries.incrementAndGet() > bits.insertions() * staleRatio) {
+            rebuildAsync();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    public void rebuildAsync() {
+        if (rebuilding.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    void rebuild() {
+        long count = userRepository.count();
+        Bits building = new Bits(Math.max(expectedInsertions, count * 2), falsePositiveRate);
+        next = building;
+        staleEntries.set(0);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                emails.forEach(building::put);
+            }
+        });
+        current = building;
+        next = null;
+        logger.info("Email filter rebuilt with {} emails ({} bits, {} hashes)",
+                building.insertions(), building.bitCount(), building.hashCount());
+    }
+
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Bits(long expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+            this.bitCount = (long) words.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String email) {
+            long hash = hash(email);
+            long h1 = mix(hash);
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String email) {
+            long hash = hash(email);
+            long h1 = mix(hash);
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long insertions() { return insertions.get(); }
+
+        long bitCount() { return bitCount; }
+
+        int hashCount() { return hashCount; }
+
+        // FNV-1a over the UTF-16 chars, finished with a 64-bit avalanche
+        private static long hash(String value) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001B3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xFF51AFD7ED558CCDL;
+            value ^= value >>> 33;
+            value *= 0xC4CEB9FE1A85EC53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
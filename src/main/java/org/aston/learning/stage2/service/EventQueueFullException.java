@@ -0,0 +1,8 @@
+package org.aston.learning.stage2.service;
+
+public class EventQueueFullException extends RuntimeException {
+
+    public EventQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,206 @@
+package org.aston.learning.stage2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aston.learning.stage2.entity.OutboxEvent;
+import org.aston.learning.stage2.event.UserEvent;
+import org.aston.learning.stage2.event.UserStateEvent;
+import org.aston.learning.stage2.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the user outbox: locks a batch of pending rows, hands them all to the
+ * {@link UserEventDispatcher} before waiting on any acknowledgement (the producer pipelines them),
+ * then marks the acknowledged ones as processed.
+ * Failed rows stay pending and are retried on the next poll. Later rows with the same key stay pending
+ * too, even if they were acknowledged, so the retry goes out before them again and per-user order holds.
+ * All acknowledgements of a batch share one {@code send-timeout} deadline, which bounds how long the
+ * row locks and the connection are held.
+ */
+@Component
+@ConditionalOnProperty(name = "user.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // Only these payload types may be rebuilt from the outbox
+    private static final Map<String, Class<?>> PAYLOAD_TYPES = Map.of(
+            UserEvent.class.getName(), UserEvent.class,
+            UserStateEvent.class.getName(), UserStateEvent.class
+    );
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserEventDispatcher userEventDispatcher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       UserEventDispatcher userEventDispatcher,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${user.outbox.batch-size:200}") int batchSize,
+                       @Value("${user.outbox.send-timeout:10s}") Duration sendTimeout,
+                       @Value("${user.outbox.retention:1h}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userEventDispatcher = userEventDispatcher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+
+        this.sentCounter = Counter.builder("user.outbox.sent")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("user.outbox.failed")
+                .description("Outbox event sends that failed and will be retried")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.batch")
+                .description("Time to relay one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("user.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest pending outbox event seen by the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        // Kept by the relay loop, a scrape must not run a COUNT
+        Gauge.builder("user.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox events not yet relayed, as of the last poll")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${user.outbox.poll-interval-ms:500}")
+    public void relay() {
+        int relayed = relayOnce();
+        if (relayed < batchSize) {
+            return;
+        }
+        // A backlog: count it once, relayBatch then tracks it as it drains
+        pending.set(transactionTemplate.execute(status -> outboxEventRepository.countByProcessedAtIsNull()));
+        // Keep going while full batches go through, so a backlog drains without waiting for the next poll
+        do {
+            relayed = relayOnce();
+        } while (relayed == batchSize);
+    }
+
+    private int relayOnce() {
+        return batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+    }
+
+    @Scheduled(fixedDelayString = "${user.outbox.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+    }
+
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockPending(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            pending.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            futures.add(send(event));
+        }
+
+        LocalDateTime processedAt = LocalDateTime.now();
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        // Keyed events are partitioned by key, so only rows with the same key are ordered against each other
+        Set<String> failedKeys = new HashSet<>();
+        int sent = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            String key = event.getMessageKey();
+            boolean acknowledged = await(event, futures.get(i), deadline);
+            if (key != null && failedKeys.contains(key)) {
+                continue;
+            }
+            if (acknowledged) {
+                event.setProcessedAt(processedAt);
+                sent++;
+            } else if (key != null) {
+                failedKeys.add(key);
+            }
+        }
+        sentCounter.increment(sent);
+        failedCounter.increment(batch.size() - sent);
+        trackPending(batch.size(), sent);
+        return sent;
+    }
+
+    // A partial batch saw every pending row this relay can lock; a full one only shrinks the counted backlog
+    private void trackPending(int batchRows, int sent) {
+        int left = batchRows - sent;
+        if (batchRows < batchSize) {
+            pending.set(left);
+        } else {
+            pending.updateAndGet(count -> Math.max(count - sent, left));
+        }
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            Class<?> type = PAYLOAD_TYPES.get(event.getPayloadType());
+            if (type == null) {
+                throw new IllegalStateException("Unknown outbox payload type " + event.getPayloadType());
+            }
+            Object payload = objectMapper.readValue(event.getPayload(), type);
+            return userEventDispatcher.dispatch(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private boolean await(OutboxEvent event, CompletableFuture<SendResult<String, Object>> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException ex) {
+            logger.warn("Failed to relay outbox event {} to {}: {}", event.getId(), event.getTopic(), ex.toString());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader on its own thread,
+ * callers arriving while it runs wait for its outcome instead of running their own. Waiters get
+ * the leader's result or its exception, or {@link CoalescedLoadTimeoutException} after
+ * {@code timeout}. Waiting parks on a CompletableFuture and no lock is held around the loader,
+ * so neither virtual nor platform threads pin or block each other beyond the load itself.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+    private final Counter coalesced;
+
+    SingleFlight(Duration timeout, Counter coalesced) {
+        this.timeoutNanos = timeout.toNanos();
+        this.coalesced = coalesced;
+    }
+
+    V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            return lead(key, flight, loader);
+        }
+        coalesced.increment();
+        return await(key, leader);
+    }
+
+    /** Later callers start a fresh load instead of joining the current one, e.g. after a write. */
+    void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            // Only our own flight: forget() may already have made room for a newer one
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(K key, CompletableFuture<V> leader) {
+        try {
+            return leader.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new CoalescedLoadTimeoutException(key);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CoalescedLoadTimeoutException(key);
+        } catch (ExecutionException ex) {
+            // The leader's own exception, so callers handle it exactly as if they had loaded
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
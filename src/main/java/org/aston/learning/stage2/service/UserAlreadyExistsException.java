@@ -0,0 +1,8 @@
+package org.aston.learning.stage2.service;
+
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,153 @@
+package org.aston.learning.stage2.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of {@link UserResponse} by id.
+ * Entries are evicted locally right away and again after commit, when the invalidation is also
+ * broadcast to the other instances. A load only fills the cache if no eviction of its id ran meanwhile,
+ * so a read racing a write cannot cache the old row. Callers always get their own copy, so adding links is safe.
+ * Concurrent misses for the same id share one load ({@link SingleFlight}), also with the cache
+ * disabled; {@code user.cache.coalesced} counts the calls that waited instead of querying.
+ */
+@Component
+public class UserCache {
+
+    public static final String CACHE_NAME = "users";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+    // Power of two; ids sharing a stripe only cost each other a skipped put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final UserEventPublisher userEventPublisher;
+    private final Cache<Long, UserResponse> cache;
+    private final SingleFlight<Long, UserResponse> loads;
+    // Bumped by every eviction, so a load can tell whether a write ran while it was reading
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final boolean enabled;
+
+    @Autowired
+    public UserCache(UserEventPublisher userEventPublisher,
+                     MeterRegistry meterRegistry,
+                     @Value("${user.cache.enabled:true}") boolean enabled,
+                     @Value("${user.cache.max-size:10000}") long maxSize,
+                     @Value("${user.cache.ttl:5m}") Duration ttl,
+                     @Value("${user.cache.coalesce-timeout:5s}") Duration coalesceTimeout) {
+        this.userEventPublisher = userEventPublisher;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.loads = new SingleFlight<>(coalesceTimeout, Counter.builder("user.cache.coalesced")
+                .description("User lookups that waited for an in-flight load of the same id instead of querying")
+                .register(meterRegistry));
+    }
+
+    public UserResponse get(Long id, Supplier<UserResponse> loader) {
+        if (!enabled) {
+            return copyOf(loads.execute(id, loader));
+        }
+        // Not cache.get(id, mappingFunction): that runs the database load inside a
+        // ConcurrentHashMap bin lock (synchronized), which pins a virtual thread's carrier
+        UserResponse cached = cache.getIfPresent(id);
+        if (cached == null) {
+            cached = loads.execute(id, () -> {
+                long generation = generations.get(stripe(id));
+                UserResponse loaded = loader.get();
+                // An eviction since the load started may belong to a write this read did not see, so the row
+                // is only cached if there was none. Checked inside compute, which evictions also serialize on
+                cache.asMap().compute(id, (key, current) ->
+                        generations.get(stripe(id)) == generation ? loaded : current);
+                return loaded;
+            });
+        }
+        return copyOf(cached);
+    }
+
+    public void invalidate(Long id) {
+        // A load that started before this write must not serve callers arriving after it
+        loads.forget(id);
+        if (!enabled) {
+            return;
+        }
+        evict(id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A reader may reload the old row before the writer commits, so evict once more afterwards
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                    userEventPublisher.publishCacheInvalidation(id);
+                }
+            });
+        } else {
+            userEventPublisher.publishCacheInvalidation(id);
+        }
+    }
+
+    // One after-commit callback for the whole set instead of one per id
+    public void invalidateAll(Collection<Long> ids) {
+        ids.forEach(loads::forget);
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<Long> evicted = List.copyOf(ids);
+        evicted.forEach(this::evict);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evicted.forEach(UserCache.this::evict);
+                    evicted.forEach(userEventPublisher::publishCacheInvalidation);
+                }
+            });
+        } else {
+            evicted.forEach(userEventPublisher::publishCacheInvalidation);
+        }
+    }
+
+    public void evictLocal(Long id) {
+        logger.debug("Evicting user {} on remote invalidation", id);
+        evict(id);
+    }
+
+    private void evict(Long id) {
+        loads.forget(id);
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
+    }
+
+    private static UserResponse copyOf(UserResponse user) {
+        UserResponse copy = new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getAge(),
+                user.getCreatedAt());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
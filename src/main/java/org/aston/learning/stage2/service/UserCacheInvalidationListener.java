@@ -0,0 +1,27 @@
+package org.aston.learning.stage2.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserCacheInvalidationListener {
+
+    private final UserCache userCache;
+
+    @Autowired
+    public UserCacheInvalidationListener(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    // Random group id per instance: every node has to see every invalidation
+    @KafkaListener(
+            topics = UserEventPublisher.CACHE_INVALIDATION_TOPIC,
+            groupId = "user-service-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest",
+            autoStartup = "${user.cache.enabled:true}")
+    public void onInvalidation(ConsumerRecord<String, ?> record) {
+        userCache.evictLocal(Long.valueOf(record.key()));
+    }
+}
@@ -0,0 +1,232 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue in front of the KafkaTemplate, drained by one dedicated sender thread.
+ * Callers never block on broker metadata ({@code max.block.ms}); they get a future completed by the
+ * producer callback. Events go out in queue order and are not requeued on failure: the producer
+ * retries within {@code delivery.timeout.ms}, and {@link OutboxRelay} resends what still failed, so a
+ * requeue here would only reorder events of the same key behind newer ones.
+ * What happens when the queue is full is decided by {@link OverflowPolicy}.
+ */
+@Component
+public class UserEventDispatcher implements SmartLifecycle {
+
+    /**
+     * Only {@link OutboxRelay} calls {@link #dispatch}, so an overflow never reaches an HTTP request:
+     * under every policy the outbox row stays pending and goes out on a later poll. BLOCK also slows
+     * the relay down to the sender's pace.
+     */
+    public enum OverflowPolicy {
+        /** Wait up to user.events.block-timeout for space, then throw EventQueueFullException. */
+        BLOCK,
+        /** Drop the event; the returned future fails, nothing is thrown. */
+        DROP,
+        /** Throw EventQueueFullException to the caller right away. */
+        FAIL
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventDispatcher.class);
+    private static final int DRAIN_BATCH = 256;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final BlockingQueue<Envelope> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+
+    private final Timer publishLatency;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private Thread sender;
+
+    @Autowired
+    public UserEventDispatcher(KafkaTemplate<String, Object> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${user.events.queue-capacity:10000}") int queueCapacity,
+                               @Value("${user.events.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                               @Value("${user.events.block-timeout:100ms}") Duration blockTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+
+        Gauge.builder("user.events.queue.depth", queue, BlockingQueue::size)
+                .description("Events waiting for the Kafka sender thread")
+                .register(meterRegistry);
+        this.publishLatency = Timer.builder("user.events.publish.latency")
+                .description("Time from dispatch to broker acknowledgement")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.successCounter = publishCounter(meterRegistry, "success");
+        this.failureCounter = publishCounter(meterRegistry, "failure");
+        this.droppedCounter = publishCounter(meterRegistry, "dropped");
+    }
+
+    private static Counter publishCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.events.publish")
+                .description("Event publish outcomes")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> dispatch(String topic, String key, Object value) {
+        Envelope envelope = new Envelope(topic, key, value, System.nanoTime());
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                boolean accepted;
+                try {
+                    accepted = queue.offer(envelope, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                if (!accepted) {
+                    droppedCounter.increment();
+                    throw new EventQueueFullException("Event queue is full, cannot publish to " + topic);
+                }
+            }
+            case DROP -> {
+                if (!queue.offer(envelope)) {
+                    droppedCounter.increment();
+                    envelope.result.completeExceptionally(
+                            new EventQueueFullException("Event queue is full, dropped event for " + topic));
+                }
+            }
+            case FAIL -> {
+                if (!queue.offer(envelope)) {
+                    droppedCounter.increment();
+                    throw new EventQueueFullException("Event queue is full, cannot publish to " + topic);
+                }
+            }
+        }
+        return envelope.result;
+    }
+
+    /**
+     * Enqueues without waiting and never throws, whatever the overflow policy. For sends made after a
+     * commit, where an exception would fail a request whose write already succeeded. A full queue drops
+     * the event, counted as {@code user.events.publish{result=dropped}}, and returns false.
+     */
+    public boolean tryDispatch(String topic, String key, Object value) {
+        if (queue.offer(new Envelope(topic, key, value, System.nanoTime()))) {
+            return true;
+        }
+        droppedCounter.increment();
+        logger.debug("Event queue is full, dropped event for {}", topic);
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<Envelope> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Envelope first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Envelope envelope : batch) {
+                    send(envelope);
+                }
+                batch.clear();
+            } catch (InterruptedException ex) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void send(Envelope envelope) {
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(envelope.topic, envelope.key, envelope.value);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        future.whenComplete((result, ex) -> {
+            if (ex == null) {
+                successCounter.increment();
+                publishLatency.record(System.nanoTime() - envelope.enqueuedNanos, TimeUnit.NANOSECONDS);
+                envelope.result.complete(result);
+            } else {
+                failureCounter.increment();
+                logger.warn("Failed to publish event to {}: {}", envelope.topic, ex.toString());
+                envelope.result.completeExceptionally(ex);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        // Stays a platform thread in virtual-thread mode: KafkaProducer.send waits for metadata
+        // inside synchronized blocks, which would pin a carrier
+        sender = new Thread(this::drain, "user-event-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        // Let the sender flush what is already queued before the producer is closed
+        running = false;
+        if (sender == null) {
+            return;
+        }
+        try {
+            sender.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Envelope {
+        private final String topic;
+        private final String key;
+        private final Object value;
+        private final long enqueuedNanos;
+        private final CompletableFuture<SendResult<String, Object>> result;
+
+        Envelope(String topic, String key, Object value, long enqueuedNanos) {
+            this.topic = topic;
+            this.key = key;
+            this.value = value;
+            this.enqueuedNanos = enqueuedNanos;
+            this.result = new CompletableFuture<>();
+        }
+    }
+}
@@ -1,25 +1,130 @@
 package org.aston.learning.stage2.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aston.learning.stage2.entity.OutboxEvent;
+import org.aston.learning.stage2.entity.User;
 import org.aston.learning.stage2.event.UserEvent;
+import org.aston.learning.stage2.event.UserStateEvent;
+import org.aston.learning.stage2.repository.DeletedUser;
+import org.aston.learning.stage2.repository.OutboxEventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * User events are written to the outbox in the caller's transaction and sent to Kafka by
+ * {@link OutboxRelay}, so a rollback never leaks an event and a slow broker never holds a DB transaction.
+ * With {@code user.read-model.enabled} every write also emits its resulting {@link UserStateEvent}
+ * for the {@link UserReadModel}s; the flag has to be the same on all instances.
+ */
 @Service
 public class UserEventPublisher {
 
-    private static final String TOPIC = "user-events";
+    public static final String TOPIC = "user-events";
+    public static final String CACHE_INVALIDATION_TOPIC = "user-cache-invalidation";
+    // Keyed by user id; a compacted topic keeps the latest state of every user
+    public static final String USER_STATE_TOPIC = "user-state";
+
+    @Autowired
+    private UserEventDispatcher userEventDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private UserReadModel userReadModel;
+
+    @Value("${user.read-model.enabled:false}")
+    private boolean publishState;
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishUserCreated(String email, String userName) {
         UserEvent event = new UserEvent("USER_CREATED", email, userName);
-        kafkaTemplate.send(TOPIC, event);
+        enqueue(TOPIC, null, event);
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishUserDeleted(String email, String userName) {
         UserEvent event = new UserEvent("USER_DELETED", email, userName);
-        kafkaTemplate.send(TOPIC, event);
+        enqueue(TOPIC, null, event);
+    }
+
+    // One saveAll, so the outbox rows go out as a single JDBC batch
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUsersDeleted(List<DeletedUser> users) {
+        List<OutboxEvent> events = new ArrayList<>(users.size());
+        for (DeletedUser user : users) {
+            events.add(toOutboxEvent(TOPIC, null, new UserEvent("USER_DELETED", user.email(), user.name())));
+        }
+        outboxEventRepository.saveAll(events);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUserStates(Collection<User> users) {
+        if (!publishState) {
+            return;
+        }
+        List<UserStateEvent> states = new ArrayList<>(users.size());
+        for (User user : users) {
+            // Micros like the column, so a cursor taken from the model also fits the database
+            states.add(new UserStateEvent(user.getId(), user.getName(), user.getEmail(), user.getAge(),
+                    user.getCreatedAt().truncatedTo(ChronoUnit.MICROS), user.getVersion()));
+        }
+        enqueueStates(states);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUsersRemoved(Collection<Long> ids) {
+        if (!publishState) {
+            return;
+        }
+        enqueueStates(ids.stream().map(UserStateEvent::deleted).toList());
+    }
+
+    // Key-only message: consumers just need the id to evict. Sent after commit, so no outbox, and
+    // never blocks or throws: a dropped invalidation only leaves other caches stale until their TTL
+    public void publishCacheInvalidation(Long userId) {
+        userEventDispatcher.tryDispatch(CACHE_INVALIDATION_TOPIC, String.valueOf(userId), null);
+    }
+
+    private void enqueueStates(List<UserStateEvent> states) {
+        List<OutboxEvent> events = new ArrayList<>(states.size());
+        for (UserStateEvent state : states) {
+            events.add(toOutboxEvent(USER_STATE_TOPIC, String.valueOf(state.getId()), state));
+        }
+        outboxEventRepository.saveAll(events);
+
+        // This instance reads its own writes without waiting for the relay and the topic
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                states.forEach(userReadModel::applyLocal);
+            }
+        });
+    }
+
+    private void enqueue(String topic, String key, Object payload) {
+        outboxEventRepository.save(toOutboxEvent(topic, key, payload));
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, String key, Object payload) {
+        try {
+            return new OutboxEvent(topic, key, payload.getClass().getName(), objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize " + payload.getClass().getSimpleName(), ex);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package org.aston.learning.stage2.service;
+
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(Long id) {
+        super("User not found with id: " + id);
+    }
+
+    public UserNotFoundException(String email) {
+        super("User not found with email: " + email);
+    }
+}
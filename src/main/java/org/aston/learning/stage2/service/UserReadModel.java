@@ -0,0 +1,274 @@
+package org.aston.learning.stage2.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aston.learning.stage2.event.UserStateEvent;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.repository.UserView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory read side of the users table, off unless {@code user.read-model.enabled=true}.
+ * <p>
+ * Fed by the user-state topic ({@link UserStateListener}) and bootstrapped from a snapshot of the
+ * table once the listener owns its partitions, so every write is either in the snapshot or still
+ * ahead on the topic. Writes made on this instance are also applied right after their commit.
+ * Each id keeps its highest version; deleted ids are remembered for {@code tombstone-retention},
+ * so a late event cannot bring a user back.
+ * <p>
+ * Indexes by id, email and (createdAt, id) are lock-free to read, so lookups and pages scale with
+ * cores instead of pool connections. The model serves reads only after the bootstrap and while its
+ * staleness, {@code user.read-model.lag}, is within {@code max-staleness}; otherwise callers read the
+ * database. Staleness is measured per assigned partition from the last time it was known to hold every
+ * write: the commit time of its last applied event, or a check that the consumer had reached the
+ * partition's end. It keeps growing while the consumer is stalled, so a broker outage or a stuck
+ * listener turns serving off instead of freezing the last good value. Writes still waiting in the
+ * outbox are not on the topic yet; the relay's delay only shows through the event commit times.
+ */
+@Component
+public class UserReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReadModel.class);
+
+    private final ConcurrentHashMap<Long, UserView> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<PageKey, UserView> byCreatedAt = new ConcurrentSkipListMap<>();
+    private final Cache<Long, Boolean> deletedIds;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final long maxStalenessMillis;
+
+    private final AtomicBoolean bootstrapStarted = new AtomicBoolean();
+    private volatile boolean bootstrapped;
+    // Assigned partition -> epoch millis up to which the model holds all of its writes, 0 until known
+    private final ConcurrentHashMap<Integer, Long> freshAsOf = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserReadModel(UserRepository userRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                         MeterRegistry meterRegistry,
+                         @Value("${user.read-model.enabled:false}") boolean enabled,
+                         @Value("${user.read-model.max-staleness:5s}") Duration maxStaleness,
+                         @Value("${user.read-model.tombstone-retention:1h}") Duration tombstoneRetention) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.deletedIds = Caffeine.newBuilder()
+                .expireAfterWrite(tombstoneRetention)
+                .build();
+
+        Gauge.builder("user.read-model.lag", this, model -> {
+                    long staleness = model.stalenessMillis();
+                    return staleness == Long.MAX_VALUE ? Double.NaN : staleness / 1000.0;
+                })
+                .description("How far the read model may be behind the database, NaN before the first check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("user.read-model.users", byId, ConcurrentHashMap::size)
+                .description("Users held by the read model")
+                .register(meterRegistry);
+        Gauge.builder("user.read-model.serving", this, model -> model.isServing() ? 1 : 0)
+                .description("1 while reads are served from the read model")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isServing() {
+        return enabled && bootstrapped && stalenessMillis() <= maxStalenessMillis;
+    }
+
+    /** Unbounded while no partition is assigned or one has not been confirmed fresh yet. */
+    long stalenessMillis() {
+        if (freshAsOf.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long oldest = Long.MAX_VALUE;
+        for (long asOf : freshAsOf.values()) {
+            oldest = Math.min(oldest, asOf);
+        }
+        return oldest == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * Loads the snapshot in the background; call after the stream's positions are fixed. A no-op once
+     * loaded or while a load runs. A failed load is logged and the next call tries again.
+     */
+    public void startBootstrap() {
+        if (!enabled || bootstrapped || !bootstrapStarted.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    bootstrap();
+                } catch (RuntimeException ex) {
+                    logger.warn("User read model bootstrap failed, retrying on the next freshness check", ex);
+                    bootstrapStarted.set(false);
+                }
+            });
+        } catch (RuntimeException ex) {
+            bootstrapStarted.set(false);
+            throw ex;
+        }
+    }
+
+    public void partitionsAssigned(Collection<Integer> partitions) {
+        partitions.forEach(partition -> freshAsOf.putIfAbsent(partition, 0L));
+    }
+
+    public void partitionsRevoked(Collection<Integer> partitions) {
+        partitions.forEach(freshAsOf::remove);
+    }
+
+    /** The consumer had read everything on the partition that was there at {@code asOfMillis}. */
+    public void markFresh(int partition, long asOfMillis) {
+        freshAsOf.merge(partition, asOfMillis, Math::max);
+    }
+
+    void bootstrap() {
+        long start = System.nanoTime();
+        AtomicLong loaded = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserView> users = userRepository.streamAll()) {
+                users.forEach(user -> {
+                    upsert(user);
+                    loaded.incrementAndGet();
+                });
+            }
+        });
+        bootstrapped = true;
+        logger.info("User read model bootstrapped with {} users in {} ms",
+                loaded.get(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /** An event from the user-state topic; its partition is fresh at least as of the event's commit. */
+    public void apply(int partition, UserStateEvent event) {
+        applyLocal(event);
+        markFresh(partition, event.getWrittenAt());
+    }
+
+    /** A write committed on this instance, visible here before its event comes back from the topic. */
+    public void applyLocal(UserStateEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getId());
+        } else {
+            upsert(new UserView(event.getId(), event.getName(), event.getEmail(), event.getAge(),
+                    event.getCreatedAt(), event.getVersion()));
+        }
+    }
+
+    public Optional<UserView> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<UserView> findByEmail(String email) {
+        Long id = idByEmail.get(email);
+        UserView user = id == null ? null : byId.get(id);
+        // The two indexes are updated one after the other, re-check against the row itself
+        return user != null && user.email().equals(email) ? Optional.of(user) : Optional.empty();
+    }
+
+    public List<UserView> findAllById(Collection<Long> ids) {
+        List<UserView> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserView user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /** Up to {@code limit} users ordered by (createdAt, id), after the cursor position if given. */
+    public List<UserView> findPage(UserCursor after, int limit) {
+        Collection<UserView> users = after == null
+                ? byCreatedAt.values()
+                : byCreatedAt.tailMap(new PageKey(after.getCreatedAt(), after.getId()), false).values();
+        List<UserView> page = new ArrayList<>(limit);
+        for (UserView user : users) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+
+    private void upsert(UserView user) {
+        // compute serializes all changes of one id, the secondary indexes follow inside it
+        byId.compute(user.id(), (id, current) -> {
+            if (deletedIds.getIfPresent(id) != null) {
+                return null;
+            }
+            if (current != null) {
+                if (current.version() >= user.version()) {
+                    return current;
+                }
+                byCreatedAt.remove(PageKey.of(current));
+                if (!current.email().equals(user.email())) {
+                    idByEmail.remove(current.email(), id);
+                }
+            }
+            idByEmail.put(user.email(), id);
+            byCreatedAt.put(PageKey.of(user), user);
+            return user;
+        });
+    }
+
+    private void remove(Long userId) {
+        byId.compute(userId, (id, current) -> {
+            deletedIds.put(id, Boolean.TRUE);
+            if (current != null) {
+                byCreatedAt.remove(PageKey.of(current));
+                idByEmail.remove(current.email(), id);
+            }
+            return null;
+        });
+    }
+
+    // Same order as idx_users_created_at_id, so cursors work against either side
+    private record PageKey(LocalDateTime createdAt, long id) implements Comparable<PageKey> {
+
+        static PageKey of(UserView user) {
+            return new PageKey(user.createdAt(), user.id());
+        }
+
+        @Override
+        public int compareTo(PageKey other) {
+            int byTime = createdAt.compareTo(other.createdAt);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+}
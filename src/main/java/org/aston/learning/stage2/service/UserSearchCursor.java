@@ -0,0 +1,70 @@
+package org.aston.learning.stage2.service;
+
+import org.aston.learning.stage2.entity.User;
+import org.aston.learning.stage2.repository.UserView;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position of a search page: the sort it belongs to plus the last row's sort key and id.
+ * A cursor is only valid for the sort it was issued under.
+ */
+final class UserSearchCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final UserSearchSort sort;
+    private final boolean descending;
+    private final String key;
+    private final Long id;
+
+    private UserSearchCursor(UserSearchSort sort, boolean descending, String key, Long id) {
+        this.sort = sort;
+        this.descending = descending;
+        this.key = key;
+        this.id = id;
+    }
+
+    static String encode(UserSearchSort sort, boolean descending, UserView last) {
+        String raw = sort.name() + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR
+                + sort.keyOf(last) + SEPARATOR + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static UserSearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The key may itself contain the separator (names), so split on the first two and the last
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || second < 0 || last <= second) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            String direction = raw.substring(first + 1, second);
+            if (!direction.equals("asc") && !direction.equals("desc")) {
+                throw new IllegalArgumentException("Unknown direction " + direction);
+            }
+            return new UserSearchCursor(
+                    UserSearchSort.valueOf(raw.substring(0, first)),
+                    direction.equals("desc"),
+                    raw.substring(second + 1, last),
+                    Long.valueOf(raw.substring(last + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Invalid cursor: " + token);
+        }
+    }
+
+    Specification<User> toSpecification(UserSearchSort expectedSort, boolean expectedDescending) {
+        if (sort != expectedSort || descending != expectedDescending) {
+            throw new RuntimeException("Cursor was issued for a different sort");
+        }
+        try {
+            return sort.after(key, id, descending);
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Invalid cursor position: " + key);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.aston.learning.stage2.service;
+
+import org.aston.learning.stage2.entity.User;
+import org.aston.learning.stage2.repository.UserSpecifications;
+import org.aston.learning.stage2.repository.UserView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Sort orders of the user search. Each is a {@code (column, id)} keyset with its own index, so only
+ * columns that have one are offered.
+ */
+public enum UserSearchSort {
+
+    CREATED_AT("createdAt") {
+        @Override
+        String keyOf(UserView user) {
+            return user.createdAt().toString();
+        }
+
+        @Override
+        Specification<User> after(String key, Long id, boolean descending) {
+            try {
+                return UserSpecifications.afterCreatedAt(LocalDateTime.parse(key), id, descending);
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid createdAt " + key, ex);
+            }
+        }
+    },
+
+    NAME("name") {
+        @Override
+        String keyOf(UserView user) {
+            return user.name();
+        }
+
+        @Override
+        Specification<User> after(String key, Long id, boolean descending) {
+            return UserSpecifications.afterName(key, id, descending);
+        }
+    };
+
+    private final String property;
+
+    UserSearchSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() { return property; }
+
+    public Sort toSort(boolean descending) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, property).and(Sort.by(direction, "id"));
+    }
+
+    abstract String keyOf(UserView user);
+
+    abstract Specification<User> after(String key, Long id, boolean descending);
+
+    public static UserSearchSort fromProperty(String property) {
+        for (UserSearchSort sort : values()) {
+            if (sort.property.equals(property)) {
+                return sort;
+            }
+        }
+        throw new RuntimeException("Unsupported sort: " + property + ", expected createdAt or name");
+    }
+}
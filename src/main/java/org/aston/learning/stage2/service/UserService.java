@@ -1,13 +1,40 @@
 package org.aston.learning.stage2.service;
 
+import org.aston.learning.stage2.dto.UserBatchResponse;
+import org.aston.learning.stage2.dto.UserBulkDeleteResponse;
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserPageResponse;
+import org.aston.learning.stage2.dto.UserPatchRequest;
 import org.aston.learning.stage2.dto.UserRequest;
 import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
+    int DEFAULT_PAGE_SIZE = 20;
+    int MAX_PAGE_SIZE = 100;
+    int MAX_BATCH_SIZE = 1000;
+
     List<UserResponse> getAllUsers();
+    UserPageResponse getUsersPage(String cursor, int size);
     UserResponse getUserById(Long id);
+    UserResponse getUserByEmail(String email);
+    // Users in request order, unknown ids listed separately; at most MAX_BATCH_SIZE ids
+    UserLookupResponse getUsersByIds(Collection<Long> ids);
+    // Keyset paged like getUsersPage; the cursor is tied to the sort it was issued for
+    UserPageResponse searchUsers(UserSearchRequest criteria, String cursor, int size);
+    void exportUsers(Consumer<UserResponse> consumer);
     UserResponse createUser(UserRequest userRequest);
+    UserBatchResponse createUsers(List<UserRequest> userRequests);
     UserResponse updateUser(Long id, UserRequest userRequest);
+    // expectedVersion null means unconditional, otherwise UserVersionMismatchException on a stale version
+    UserResponse updateUser(Long id, UserRequest userRequest, Long expectedVersion);
+    // Only the non-null fields change; one statement, no read-modify-write
+    UserResponse patchUser(Long id, UserPatchRequest patch, Long expectedVersion);
     void deleteUser(Long id);
+    void deleteUser(Long id, Long expectedVersion);
+    // Unknown ids are reported, not an error; at most MAX_BATCH_SIZE ids
+    UserBulkDeleteResponse deleteUsers(Collection<Long> ids);
 }
\ No newline at end of file
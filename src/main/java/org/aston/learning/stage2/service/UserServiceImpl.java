@@ -1,104 +1,544 @@
 package org.aston.learning.stage2.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.aston.learning.stage2.dto.UserBatchItemResult;
+import org.aston.learning.stage2.dto.UserBatchResponse;
+import org.aston.learning.stage2.dto.UserBulkDeleteResponse;
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserPageResponse;
+import org.aston.learning.stage2.dto.UserPatchRequest;
 import org.aston.learning.stage2.dto.UserRequest;
 import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
 import org.aston.learning.stage2.entity.User;
+import org.aston.learning.stage2.repository.DeletedUser;
+import org.aston.learning.stage2.repository.PatchedUser;
 import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.repository.UserSpecifications;
+import org.aston.learning.stage2.repository.UserView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final String UNIQUE_VIOLATION = "23505";
     private final UserRepository userRepository;
     private final UserEventPublisher userEventPublisher;
+    private final Validator validator;
+    private final UserCache userCache;
+    private final EmailBloomFilter emailFilter;
+    private final UserReadModel userReadModel;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, UserEventPublisher userEventPublisher) {
+    public UserServiceImpl(UserRepository userRepository, UserEventPublisher userEventPublisher,
+                           Validator validator, UserCache userCache, EmailBloomFilter emailFilter,
+                           UserReadModel userReadModel) {
         this.userRepository = userRepository;
         this.userEventPublisher = userEventPublisher;
+        this.validator = validator;
+        this.userCache = userCache;
+        this.emailFilter = emailFilter;
+        this.userReadModel = userReadModel;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
+        return userRepository.findAllViews()
                 .stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    // No transaction of its own: pages served by the read model must not take a connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserPageResponse getUsersPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        UserCursor position = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+        // Fetch one extra row to know whether there is a next page without a count query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<UserView> rows;
+        if (userReadModel.isServing()) {
+            rows = userReadModel.findPage(position, pageSize + 1);
+        } else if (position == null) {
+            rows = userRepository.findFirstPage(limit);
+        } else {
+            rows = userRepository.findPageAfter(position.getCreatedAt(), position.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<UserView> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            UserView last = page.get(page.size() - 1);
+            nextCursor = UserCursor.encode(last.createdAt(), last.id());
+        }
+
+        List<UserResponse> users = page.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        return new UserPageResponse(users, nextCursor, pageSize);
+    }
+
     @Override
     @Transactional(readOnly = true)
+    public UserPageResponse searchUsers(UserSearchRequest criteria, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String sortParam = criteria.getSort() == null || criteria.getSort().isBlank() ? "createdAt" : criteria.getSort();
+        String[] sortParts = sortParam.split(",", 2);
+        UserSearchSort sort = UserSearchSort.fromProperty(sortParts[0].trim());
+        String direction = sortParts.length > 1 ? sortParts[1].trim().toLowerCase() : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new RuntimeException("Unsupported sort direction: " + direction + ", expected asc or desc");
+        }
+        boolean descending = direction.equals("desc");
+
+        List<Specification<User>> filters = filtersOf(criteria);
+        if (cursor != null && !cursor.isBlank()) {
+            filters.add(UserSearchCursor.decode(cursor).toSpecification(sort, descending));
+        }
+
+        // Fetch one extra row to know whether there is a next page without a count query
+        List<UserView> rows = userRepository.findSlice(Specification.allOf(filters), sort.toSort(descending), pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<UserView> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? UserSearchCursor.encode(sort, descending, page.get(page.size() - 1)) : null;
+
+        List<UserResponse> users = page.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        return new UserPageResponse(users, nextCursor, pageSize);
+    }
+
+    private static List<Specification<User>> filtersOf(UserSearchRequest criteria) {
+        if (criteria.getMinAge() != null && criteria.getMaxAge() != null
+                && criteria.getMinAge() > criteria.getMaxAge()) {
+            throw new RuntimeException("minAge must not be greater than maxAge");
+        }
+        if (criteria.getCreatedAfter() != null && criteria.getCreatedBefore() != null
+                && !criteria.getCreatedAfter().isBefore(criteria.getCreatedBefore())) {
+            throw new RuntimeException("createdAfter must be before createdBefore");
+        }
+
+        List<Specification<User>> filters = new ArrayList<>();
+        if (criteria.getNamePrefix() != null) {
+            filters.add(UserSpecifications.namePrefix(criteria.getNamePrefix()));
+        }
+        if (criteria.getEmailDomain() != null) {
+            filters.add(UserSpecifications.emailDomain(criteria.getEmailDomain()));
+        }
+        if (criteria.getMinAge() != null) {
+            filters.add(UserSpecifications.ageAtLeast(criteria.getMinAge()));
+        }
+        if (criteria.getMaxAge() != null) {
+            filters.add(UserSpecifications.ageAtMost(criteria.getMaxAge()));
+        }
+        if (criteria.getCreatedAfter() != null) {
+            filters.add(UserSpecifications.createdFrom(criteria.getCreatedAfter()));
+        }
+        if (criteria.getCreatedBefore() != null) {
+            filters.add(UserSpecifications.createdBefore(criteria.getCreatedBefore()));
+        }
+        return filters;
+    }
+
+    @Override
+    // No transaction of its own: cache hits must not take a connection, misses use the repository's one
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        return convertToResponse(user);
+        if (userReadModel.isServing()) {
+            Optional<UserView> user = userReadModel.findById(id);
+            if (user.isPresent()) {
+                return convertToResponse(user.get());
+            }
+            // Possibly created elsewhere moments ago, the database decides
+        }
+        return userCache.get(id, () -> {
+            UserView user = userRepository.findViewById(id)
+                    .orElseThrow(() -> new UserNotFoundException(id));
+            return convertToResponse(user);
+        });
     }
 
     @Override
-    public UserResponse createUser(UserRequest userRequest) {
-        // Check unique email
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
-            throw new RuntimeException("User with email " + userRequest.getEmail() + " already exists");
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserResponse getUserByEmail(String email) {
+        if (userReadModel.isServing()) {
+            Optional<UserView> user = userReadModel.findByEmail(email);
+            if (user.isPresent()) {
+                return convertToResponse(user.get());
+            }
         }
+        return userRepository.findViewByEmail(email)
+                .map(this::convertToResponse)
+                .orElseThrow(() -> new UserNotFoundException(email));
+    }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserLookupResponse getUsersByIds(Collection<Long> ids) {
+        Set<Long> requested = distinctIds(ids);
+        Map<Long, UserView> found = new HashMap<>();
+        if (userReadModel.isServing()) {
+            for (UserView user : userReadModel.findAllById(requested)) {
+                found.put(user.id(), user);
+            }
+        }
+        // Only ids the read model does not know go to the database
+        if (found.size() < requested.size()) {
+            List<Long> missing = requested.stream().filter(id -> !found.containsKey(id)).toList();
+            for (UserView user : userRepository.findViewsByIdIn(missing)) {
+                found.put(user.id(), user);
+            }
+        }
+
+        List<UserResponse> users = new ArrayList<>(found.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : requested) {
+            UserView user = found.get(id);
+            if (user == null) {
+                notFound.add(id);
+            } else {
+                users.add(convertToResponse(user));
+            }
+        }
+        return new UserLookupResponse(users, notFound);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserResponse> consumer) {
+        try (Stream<UserView> users = userRepository.streamAll()) {
+            users.forEach(user -> consumer.accept(convertToResponse(user)));
+        }
+    }
+
+    @Override
+    public UserResponse createUser(UserRequest userRequest) {
         User user = new User();
         user.setName(userRequest.getName());
         user.setEmail(userRequest.getEmail());
         user.setAge(userRequest.getAge());
 
-        User savedUser = userRepository.save(user);
+        // Single INSERT: the unique constraint on email decides, there is no separate exists query
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException ex) {
+            throw duplicateEmailOr(ex, userRequest.getEmail());
+        }
+        emailFilter.add(savedUser.getEmail());
 
         // Send event to Kafka
         userEventPublisher.publishUserCreated(savedUser.getEmail(), savedUser.getName());
+        userEventPublisher.publishUserStates(List.of(savedUser));
 
         return convertToResponse(savedUser);
     }
 
+    @Override
+    public UserBatchResponse createUsers(List<UserRequest> userRequests) {
+        if (userRequests.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("Batch size must not exceed " + MAX_BATCH_SIZE + " users");
+        }
+
+        UserBatchItemResult[] results = new UserBatchItemResult[userRequests.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        // Validate every item, the first occurrence of an email inside the batch wins
+        for (int i = 0; i < userRequests.size(); i++) {
+            UserRequest userRequest = userRequests.get(i);
+            if (userRequest == null) {
+                results[i] = UserBatchItemResult.failed(i, UserBatchItemResult.Status.INVALID, List.of("User is mandatory"));
+                continue;
+            }
+
+            Set<ConstraintViolation<UserRequest>> violations = validator.validate(userRequest);
+            if (!violations.isEmpty()) {
+                List<String> errors = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .toList();
+                results[i] = UserBatchItemResult.failed(i, UserBatchItemResult.Status.INVALID, errors);
+            } else if (candidates.putIfAbsent(userRequest.getEmail(), i) != null) {
+                results[i] = UserBatchItemResult.failed(i, UserBatchItemResult.Status.DUPLICATE,
+                        List.of(duplicateEmailMessage(userRequest.getEmail())));
+            }
+        }
+
+        // One set-based uniqueness check for the emails the filter cannot rule out
+        rejectExisting(candidates.keySet().stream()
+                .filter(emailFilter::mightContain)
+                .toList(), candidates, results);
+
+        List<User> users = newUsers(userRequests, candidates);
+        try {
+            userRepository.insertAll(users);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicateEmail(ex)) {
+                throw ex;
+            }
+            // The filter only knows this instance's writes, and concurrent inserts race: check every email,
+            // report the taken ones as duplicates and insert the rest
+            rejectExisting(List.copyOf(candidates.keySet()), candidates, results);
+            users = newUsers(userRequests, candidates);
+            try {
+                userRepository.insertAll(users);
+            } catch (DataIntegrityViolationException retryEx) {
+                // Lost a race with a concurrent insert of one of the emails a second time
+                throw duplicateEmailOr(retryEx, null);
+            }
+        }
+
+        int position = 0;
+        for (int index : candidates.values()) {
+            User savedUser = users.get(position++);
+            emailFilter.add(savedUser.getEmail());
+
+            // Send event to Kafka
+            userEventPublisher.publishUserCreated(savedUser.getEmail(), savedUser.getName());
+            results[index] = UserBatchItemResult.created(index, convertToResponse(savedUser));
+        }
+        userEventPublisher.publishUserStates(users);
+
+        logger.debug("Batch create: {} requested, {} inserted", userRequests.size(), users.size());
+        return new UserBatchResponse(Arrays.asList(results));
+    }
+
     @Override
     public UserResponse updateUser(Long id, UserRequest userRequest) {
+        return updateUser(id, userRequest, null);
+    }
+
+    @Override
+    public UserResponse updateUser(Long id, UserRequest userRequest, Long expectedVersion) {
         User existingUser = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+                .orElseThrow(() -> new UserNotFoundException(id));
+        requireVersion(existingUser, expectedVersion);
 
-        // Check unique email (except current user)
-        if (userRepository.existsByEmailAndIdNot(userRequest.getEmail(), id)) {
-            throw new RuntimeException("User with email " + userRequest.getEmail() + " already exists");
+        // Check unique email (except current user), skipped when the filter knows the email is new
+        String email = userRequest.getEmail();
+        if (emailFilter.mightContain(email) && userRepository.existsByEmailAndIdNot(email, id)) {
+            throw new UserAlreadyExistsException(duplicateEmailMessage(email));
         }
 
+        String previousEmail = existingUser.getEmail();
         existingUser.setName(userRequest.getName());
-        existingUser.setEmail(userRequest.getEmail());
+        existingUser.setEmail(email);
         existingUser.setAge(userRequest.getAge());
 
-        User updatedUser = userRepository.save(existingUser);
+        User updatedUser;
+        try {
+            updatedUser = userRepository.saveAndFlush(existingUser);
+        } catch (DataIntegrityViolationException ex) {
+            throw duplicateEmailOr(ex, email);
+        } catch (OptimisticLockingFailureException ex) {
+            // Another writer committed between our read and the versioned UPDATE
+            if (expectedVersion != null) {
+                throw new UserVersionMismatchException(id);
+            }
+            throw ex;
+        }
+        userCache.invalidate(id);
+        userEventPublisher.publishUserStates(List.of(updatedUser));
+        if (!email.equals(previousEmail)) {
+            emailFilter.add(email);
+            emailFilter.remove(previousEmail);
+        }
+        return convertToResponse(updatedUser);
+    }
+
+    @Override
+    public UserResponse patchUser(Long id, UserPatchRequest patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            throw new RuntimeException("At least one of name, email or age must be provided");
+        }
+
+        // The unique constraint on email decides, there is no separate exists query
+        PatchedUser patched;
+        try {
+            patched = userRepository.patch(id, patch.getName(), patch.getEmail(), patch.getAge(), expectedVersion)
+                    .orElse(null);
+        } catch (DataIntegrityViolationException ex) {
+            throw duplicateEmailOr(ex, patch.getEmail());
+        }
+        if (patched == null) {
+            throw missingOrStale(id, expectedVersion);
+        }
+
+        User updatedUser = patched.user();
+        userCache.invalidate(id);
+        userEventPublisher.publishUserStates(List.of(updatedUser));
+        if (!updatedUser.getEmail().equals(patched.previousEmail())) {
+            emailFilter.add(updatedUser.getEmail());
+            emailFilter.remove(patched.previousEmail());
+        }
         return convertToResponse(updatedUser);
     }
 
     @Override
     public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        userRepository.deleteById(id);
+        deleteUser(id, null);
+    }
+
+    @Override
+    public void deleteUser(Long id, Long expectedVersion) {
+        // DELETE ... RETURNING hands back what the event needs, no load beforehand
+        DeletedUser user = userRepository.deleteReturning(id, expectedVersion)
+                .orElseThrow(() -> missingOrStale(id, expectedVersion));
+        userCache.invalidate(id);
+        emailFilter.remove(user.email());
 
         // Send event to Kafka
-        userEventPublisher.publishUserDeleted(user.getEmail(), user.getName());
+        userEventPublisher.publishUserDeleted(user.email(), user.name());
+        userEventPublisher.publishUsersRemoved(List.of(id));
+    }
+
+    @Override
+    public UserBulkDeleteResponse deleteUsers(Collection<Long> ids) {
+        Set<Long> requested = distinctIds(ids);
+        List<DeletedUser> deleted = userRepository.deleteAllReturning(requested);
+        List<Long> deletedIds = new ArrayList<>(deleted.size());
+        for (DeletedUser user : deleted) {
+            deletedIds.add(user.id());
+            emailFilter.remove(user.email());
+        }
+        userCache.invalidateAll(deletedIds);
+
+        // Send events to Kafka
+        if (!deleted.isEmpty()) {
+            userEventPublisher.publishUsersDeleted(deleted);
+            userEventPublisher.publishUsersRemoved(deletedIds);
+        }
+
+        requested.removeAll(deletedIds);
+        logger.debug("Bulk delete: {} requested, {} deleted", ids.size(), deletedIds.size());
+        return new UserBulkDeleteResponse(deletedIds, new ArrayList<>(requested));
+    }
+
+    // Request order kept, duplicates dropped before the batch limit applies
+    private static Set<Long> distinctIds(Collection<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            throw new RuntimeException("At least one id must be provided");
+        }
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("Batch size must not exceed " + MAX_BATCH_SIZE + " users");
+        }
+        return requested;
+    }
+
+    // Only the failure path pays for telling a missing row from a stale version
+    private RuntimeException missingOrStale(Long id, Long expectedVersion) {
+        if (expectedVersion != null && userRepository.existsById(id)) {
+            return new UserVersionMismatchException(id);
+        }
+        return new UserNotFoundException(id);
+    }
+
+    private static void requireVersion(User user, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new UserVersionMismatchException(user.getId());
+        }
+    }
+
+    private static String duplicateEmailMessage(String email) {
+        return "User with email " + email + " already exists";
+    }
+
+    private void rejectExisting(List<String> emails, Map<String, Integer> candidates, UserBatchItemResult[] results) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        for (String email : userRepository.findExistingEmails(emails)) {
+            int index = candidates.remove(email);
+            results[index] = UserBatchItemResult.failed(index, UserBatchItemResult.Status.DUPLICATE,
+                    List.of(duplicateEmailMessage(email)));
+        }
+    }
+
+    private static List<User> newUsers(List<UserRequest> userRequests, Map<String, Integer> candidates) {
+        List<User> users = new ArrayList<>(candidates.size());
+        for (int index : candidates.values()) {
+            UserRequest userRequest = userRequests.get(index);
+            users.add(new User(userRequest.getName(), userRequest.getEmail(), userRequest.getAge()));
+        }
+        return users;
+    }
+
+    // Any other violation (not null, length) is not a conflict and propagates unchanged
+    private static RuntimeException duplicateEmailOr(DataIntegrityViolationException ex, String email) {
+        if (!isDuplicateEmail(ex)) {
+            return ex;
+        }
+        return new UserAlreadyExistsException(email == null
+                ? "One or more users in the batch already exist"
+                : duplicateEmailMessage(email));
+    }
+
+    /**
+     * True for a unique violation (SQLState 23505). The generated id is the only other unique key
+     * of users and is never written by the application, so such a violation is always the email.
+     */
+    static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                // JDBC batches report the failing statement as the next exception
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (UNIQUE_VIOLATION.equals(next.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Package-private for UserConversionBenchmark
+    UserResponse convertToResponse(UserView user) {
+        UserResponse response = new UserResponse(user.id(), user.name(), user.email(), user.age(), user.createdAt());
+        response.setVersion(user.version());
+        return response;
     }
 
-    private UserResponse convertToResponse(User user) {
-        return new UserResponse(
+    UserResponse convertToResponse(User user) {
+        UserResponse response = new UserResponse(
                 user.getId(),
                 user.getName(),
                 user.getEmail(),
                 user.getAge(),
                 user.getCreatedAt()
         );
+        response.setVersion(user.getVersion());
+        return response;
     }
 }
\ No newline at end of file
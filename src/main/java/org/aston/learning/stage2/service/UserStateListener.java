@@ -0,0 +1,111 @@
+package org.aston.learning.stage2.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.aston.learning.stage2.event.UserStateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Feeds {@link UserReadModel} from the user-state topic and keeps its staleness honest: every
+ * {@code user.read-model.check-interval}, after records or when the container is idle, the consumed
+ * positions are compared with the partitions' end offsets on the consumer thread. A partition at its
+ * end is fresh as of the check; one the check cannot reach (broker down) or that lags is not.
+ * The same check retries a failed bootstrap.
+ */
+@Component
+public class UserStateListener implements ConsumerSeekAware {
+
+    static final String LISTENER_ID = "user-read-model";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStateListener.class);
+
+    private final UserReadModel userReadModel;
+    private final ObjectMapper objectMapper;
+    private final Duration checkInterval;
+    private long lastCheckMillis;
+
+    @Autowired
+    public UserStateListener(UserReadModel userReadModel, ObjectMapper objectMapper,
+                             @Value("${user.read-model.check-interval:1s}") Duration checkInterval) {
+        this.userReadModel = userReadModel;
+        this.objectMapper = objectMapper;
+        this.checkInterval = checkInterval;
+    }
+
+    // Random group id per instance: every node builds its own model from every partition
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = UserEventPublisher.USER_STATE_TOPIC,
+            groupId = "user-service-read-model-#{T(java.util.UUID).randomUUID()}",
+            properties = {
+                    "auto.offset.reset=latest",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer"
+            },
+            autoStartup = "${user.read-model.enabled:false}")
+    public void onState(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) {
+        try {
+            userReadModel.apply(record.partition(), objectMapper.readValue(record.value(), UserStateEvent.class));
+        } catch (JsonProcessingException ex) {
+            logger.warn("Skipping unreadable user state at offset {} of {}-{}",
+                    record.offset(), record.topic(), record.partition(), ex);
+        }
+        if (System.currentTimeMillis() - lastCheckMillis >= checkInterval.toMillis()) {
+            checkFreshness(consumer);
+        }
+    }
+
+    // Published on the consumer thread every spring.kafka.listener.idle-event-interval (set to the
+    // check interval), so the check also runs while no writes arrive and the consumer may be used here
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getListenerId().startsWith(LISTENER_ID) && event.getConsumer() != null) {
+            checkFreshness(event.getConsumer());
+        }
+    }
+
+    // The container resolves each partition's position before calling this, so any write the
+    // snapshot misses is committed later and therefore still ahead on the topic
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        userReadModel.partitionsAssigned(assignments.keySet().stream().map(TopicPartition::partition).toList());
+        userReadModel.startBootstrap();
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        userReadModel.partitionsRevoked(partitions.stream().map(TopicPartition::partition).toList());
+    }
+
+    void checkFreshness(Consumer<?, ?> consumer) {
+        // Taken before the end offsets are read, so nothing on the topic at this time lies beyond them
+        long now = System.currentTimeMillis();
+        lastCheckMillis = now;
+        try {
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(consumer.assignment(), checkInterval);
+            for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+                if (consumer.position(end.getKey(), checkInterval) >= end.getValue()) {
+                    userReadModel.markFresh(end.getKey().partition(), now);
+                }
+            }
+        } catch (KafkaException ex) {
+            logger.debug("Read model freshness check failed, staleness keeps growing", ex);
+        }
+        userReadModel.startBootstrap();
+    }
+}
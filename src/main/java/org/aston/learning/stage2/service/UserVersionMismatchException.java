@@ -0,0 +1,8 @@
+package org.aston.learning.stage2.service;
+
+public class UserVersionMismatchException extends RuntimeException {
+
+    public UserVersionMismatchException(Long id) {
+        super("User with id " + id + " was modified by another request");
+    }
+}
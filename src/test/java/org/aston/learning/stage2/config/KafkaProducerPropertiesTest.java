@@ -0,0 +1,60 @@
+package org.aston.learning.stage2.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class KafkaProducerPropertiesTest {
+
+    @Test
+    @DisplayName("Should leave Kafka defaults untouched for the default preset")
+    void buildProducerProperties_DefaultPreset_ShouldBeEmpty() {
+        // When
+        Map<String, Object> properties = new KafkaProducerProperties().buildProducerProperties();
+
+        // Then
+        assertThat(properties).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should apply the throughput preset")
+    void buildProducerProperties_ThroughputPreset_ShouldBatchAndCompress() {
+        // Given
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.setPreset(KafkaProducerProperties.Preset.THROUGHPUT);
+
+        // When
+        Map<String, Object> properties = producerProperties.buildProducerProperties();
+
+        // Then
+        assertThat(properties)
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 20L)
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4")
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "all")
+                .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    }
+
+    @Test
+    @DisplayName("Should let explicit settings override the preset")
+    void buildProducerProperties_ExplicitValues_ShouldOverridePreset() {
+        // Given
+        KafkaProducerProperties producerProperties = new KafkaProducerProperties();
+        producerProperties.setPreset(KafkaProducerProperties.Preset.LOW_LATENCY);
+        producerProperties.setLinger(Duration.ofMillis(2));
+        producerProperties.setCompressionType("zstd");
+
+        // When
+        Map<String, Object> properties = producerProperties.buildProducerProperties();
+
+        // Then
+        assertThat(properties)
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 2L)
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd")
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "1");
+    }
+}
@@ -0,0 +1,32 @@
+package org.aston.learning.stage2.config;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budgets for tests: runs an action on the calling thread and checks how many JDBC
+ * statements it prepared (sequence fetches excluded, see QueryCountingDataSource).
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static void assertQueryCount(String operation, long expected, Runnable action) {
+        long before = QueryCounter.current();
+        action.run();
+        assertThat(QueryCounter.current() - before)
+                .as("JDBC statements executed by %s", operation)
+                .isEqualTo(expected);
+    }
+
+    public static <T> T assertQueryCount(String operation, long expected, Supplier<T> action) {
+        long before = QueryCounter.current();
+        T result = action.get();
+        assertThat(QueryCounter.current() - before)
+                .as("JDBC statements executed by %s", operation)
+                .isEqualTo(expected);
+        return result;
+    }
+}
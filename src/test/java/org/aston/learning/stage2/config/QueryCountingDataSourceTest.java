@@ -0,0 +1,65 @@
+package org.aston.learning.stage2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+class QueryCountingDataSourceTest {
+
+    @Test
+    @DisplayName("Should close the wrapped pool when the context shuts down")
+    void close_ContextShutdown_ShouldClosePool() throws Exception {
+        // Given
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PoolConfig.class);
+        DataSource dataSource = context.getBean(DataSource.class);
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+
+        // When
+        context.close();
+
+        // Then
+        assertThat(dataSource).isInstanceOf(QueryCountingDataSource.class);
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should close the wrapped pool when the wrapper is closed")
+    void close_ShouldCloseTarget() throws Exception {
+        // Given
+        HikariDataSource pool = new HikariDataSource();
+        QueryCountingDataSource dataSource = new QueryCountingDataSource(pool);
+
+        // When
+        dataSource.close();
+
+        // Then
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Configuration
+    @Import(QueryCountConfig.class)
+    static class PoolConfig {
+
+        @Bean
+        DataSource dataSource() {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:query-count-close");
+            return pool;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
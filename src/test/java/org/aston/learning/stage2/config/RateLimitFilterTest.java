@@ -0,0 +1,123 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final String GATEWAY = "10.0.0.5";
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitProperties properties;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.setTrustedProxies(List.of(GATEWAY));
+        properties.setList(new RateLimitProperties.Quota(1, 0.5));
+        filter = new RateLimitFilter(new RateLimiter(properties), properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should reject an over-limit client with 429 and Retry-After")
+    void doFilter_OverLimit_ShouldReturn429() throws Exception {
+        // Given
+        filter.doFilter(gatewayRequest("batch-client"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(gatewayRequest("batch-client"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.get("user.http.rate-limited").tag("category", "list").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not let one gateway client's calls count against another")
+    void doFilter_OtherClientBehindGateway_ShouldPass() throws Exception {
+        // Given
+        filter.doFilter(gatewayRequest("batch-client"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(gatewayRequest("other-client"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should ignore the identity header on direct requests and key them by remote address")
+    void doFilter_DirectRequestWithNewIdentity_ShouldShareBucket() throws Exception {
+        // Given
+        filter.doFilter(directRequest("key-1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(directRequest("key-2"), response, new MockFilterChain());
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should pass everything through when disabled")
+    void doFilter_Disabled_ShouldPass() throws Exception {
+        // Given
+        properties.setEnabled(false);
+        filter.doFilter(gatewayRequest("batch-client"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(gatewayRequest("batch-client"), response, new MockFilterChain());
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should classify requests into read, write and list quotas")
+    void categorize_ShouldMapMethodAndPath() {
+        assertThat(RateLimitFilter.categorize("GET", "/api/users")).isEqualTo(RateLimiter.Category.LIST);
+        assertThat(RateLimitFilter.categorize("GET", "/api/users/search")).isEqualTo(RateLimiter.Category.LIST);
+        assertThat(RateLimitFilter.categorize("GET", "/api/users/export")).isEqualTo(RateLimiter.Category.LIST);
+        assertThat(RateLimitFilter.categorize("GET", "/api/users/42")).isEqualTo(RateLimiter.Category.READ);
+        assertThat(RateLimitFilter.categorize("POST", "/api/users/lookup")).isEqualTo(RateLimiter.Category.LIST);
+        assertThat(RateLimitFilter.categorize("POST", "/api/users")).isEqualTo(RateLimiter.Category.WRITE);
+        assertThat(RateLimitFilter.categorize("PATCH", "/api/users/42")).isEqualTo(RateLimiter.Category.WRITE);
+        assertThat(RateLimitFilter.categorize("DELETE", "/api/users")).isEqualTo(RateLimiter.Category.WRITE);
+    }
+
+    private static MockHttpServletRequest gatewayRequest(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setRemoteAddr(GATEWAY);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static MockHttpServletRequest directRequest(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setRemoteAddr("192.168.1.20");
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package org.aston.learning.stage2.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private RateLimitProperties properties;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRead(new RateLimitProperties.Quota(3, 10));
+        properties.setList(new RateLimitProperties.Quota(1, 1));
+        rateLimiter = new RateLimiter(properties, now::get);
+    }
+
+    @Test
+    @DisplayName("Should admit a full burst and then report the time to the next token")
+    void tryAcquire_BurstExhausted_ShouldReturnWait() {
+        // When
+        long first = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+        long second = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+        long third = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+        long fourth = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(fourth).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    @DisplayName("Should refill tokens as time passes")
+    void tryAcquire_AfterRefillInterval_ShouldAdmitAgain() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+        }
+
+        // When
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        long tooEarly = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        long refilled = rateLimiter.tryAcquire("client", RateLimiter.Category.READ);
+
+        // Then
+        assertThat(tooEarly).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(refilled).isZero();
+        assertThat(rateLimiter.tryAcquire("client", RateLimiter.Category.READ)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per client and per category")
+    void tryAcquire_ShouldIsolateClientsAndCategories() {
+        // Given
+        rateLimiter.tryAcquire("batch-client", RateLimiter.Category.LIST);
+
+        // When / Then
+        assertThat(rateLimiter.tryAcquire("batch-client", RateLimiter.Category.LIST)).isPositive();
+        assertThat(rateLimiter.tryAcquire("batch-client", RateLimiter.Category.READ)).isZero();
+        assertThat(rateLimiter.tryAcquire("other-client", RateLimiter.Category.LIST)).isZero();
+        assertThat(rateLimiter.trackedClients()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should apply changed quotas to existing clients")
+    void tryAcquire_QuotaChanged_ShouldUseNewQuota() {
+        // Given
+        rateLimiter.tryAcquire("client", RateLimiter.Category.LIST);
+        assertThat(rateLimiter.tryAcquire("client", RateLimiter.Category.LIST)).isPositive();
+
+        // When
+        properties.getList().setCapacity(5);
+
+        // Then
+        assertThat(rateLimiter.tryAcquire("client", RateLimiter.Category.LIST)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse to bind a quota that never refills")
+    void bind_NonPositiveRefill_ShouldFail() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(RateLimitPropertiesConfig.class)
+                .withPropertyValues("user.rate-limit.list.refill-per-second=0")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    @DisplayName("Should refuse to bind a negative capacity")
+    void bind_NegativeCapacity_ShouldFail() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(RateLimitPropertiesConfig.class)
+                .withPropertyValues("user.rate-limit.read.capacity=-1")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class RateLimitPropertiesConfig {
+    }
+}
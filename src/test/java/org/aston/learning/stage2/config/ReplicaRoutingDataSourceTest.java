@@ -0,0 +1,166 @@
+package org.aston.learning.stage2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final AtomicInteger writeCommits = new AtomicInteger();
+
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearPin();
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to a replica once its lag probe passed")
+    void readOnly_HealthyReplica_ShouldUseReplica() {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.ROUND_ROBIN, "SELECT 0", 1);
+        routing.checkReplicaLag();
+
+        // When
+        String node = readOnly.execute(status -> currentNode());
+
+        // Then
+        assertThat(node).isEqualTo("replica-1");
+        assertThat(routing.getReplicas().get(0).isHealthy()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should send read-write transactions to the primary and report the commit")
+    void readWrite_ShouldUsePrimaryAndNotifyAfterCommit() {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.ROUND_ROBIN, "SELECT 0", 1);
+        routing.checkReplicaLag();
+
+        // When
+        String node = readWrite.execute(status -> currentNode());
+
+        // Then
+        assertThat(node).isEqualTo("primary");
+        assertThat(writeCommits).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should keep reads on the primary before the first probe and while replicas lag behind")
+    void readOnly_LaggingReplica_ShouldFallBackToPrimary() {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.ROUND_ROBIN, "SELECT 10", 1);
+
+        // When
+        String beforeProbe = readOnly.execute(status -> currentNode());
+        routing.checkReplicaLag();
+        String afterProbe = readOnly.execute(status -> currentNode());
+
+        // Then
+        assertThat(beforeProbe).isEqualTo("primary");
+        assertThat(afterProbe).isEqualTo("primary");
+        assertThat(routing.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(routing.getReplicas().get(0).getLagMillis()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("Should keep reads of a pinned thread on the primary")
+    void readOnly_Pinned_ShouldUsePrimary() {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.ROUND_ROBIN, "SELECT 0", 1);
+        routing.checkReplicaLag();
+        ReplicaRoutingDataSource.pinToPrimary();
+
+        // When
+        String node = readOnly.execute(status -> currentNode());
+
+        // Then
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should rotate reads across healthy replicas")
+    void readOnly_RoundRobin_ShouldAlternateReplicas() {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.ROUND_ROBIN, "SELECT 0", 2);
+        routing.checkReplicaLag();
+
+        // When
+        String first = readOnly.execute(status -> currentNode());
+        String second = readOnly.execute(status -> currentNode());
+
+        // Then
+        assertThat(List.of(first, second)).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    @DisplayName("Should pick the replica with the fewest active connections")
+    void readOnly_LeastConnections_ShouldAvoidBusyReplica() throws Exception {
+        // Given
+        setUp(ReplicaRoutingProperties.Selection.LEAST_CONNECTIONS, "SELECT 0", 2);
+        routing.checkReplicaLag();
+
+        // When
+        String node;
+        try (Connection busy = pools.get(1).getConnection()) {
+            node = readOnly.execute(status -> currentNode());
+        }
+
+        // Then
+        assertThat(node).isEqualTo("replica-2");
+    }
+
+    private void setUp(ReplicaRoutingProperties.Selection selection, String lagQuery, int replicaCount) {
+        HikariDataSource primary = database("primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 1; i <= replicaCount; i++) {
+            replicas.add(database("replica-" + i));
+        }
+        routing = new ReplicaRoutingDataSource(primary, replicas, selection, Duration.ofSeconds(5), lagQuery,
+                writeCommits::incrementAndGet);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private HikariDataSource database(String node) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:routing-" + node + "-" + System.nanoTime());
+        pool.setMaximumPoolSize(2);
+        pools.add(pool);
+        // The pool keeps its connections open, so the in-memory database lives as long as the pool
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", node);
+        return pool;
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+}
@@ -0,0 +1,110 @@
+package org.aston.learning.stage2.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.service.UserNotFoundException;
+import org.aston.learning.stage2.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimedMethodsPostProcessorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DefaultListableBeanFactory beanFactory;
+    private UserService target;
+    private UserService timed;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        TimedMethodsPostProcessor postProcessor = new TimedMethodsPostProcessor(
+                beanFactory.getBeanProvider(MeterRegistry.class),
+                List.of(new TimedMethodsPostProcessor.TimedType(UserService.class, "user.service.operation",
+                        Tags.empty(), true, Map.of(
+                        UserNotFoundException.class, "not_found",
+                        DataIntegrityViolationException.class, "constraint_violation"), true)));
+        target = mock(UserService.class);
+        timed = (UserService) postProcessor.postProcessAfterInitialization(target, "userService");
+    }
+
+    @Test
+    @DisplayName("Should pre-register a success and an error timer for every method")
+    void postProcess_ShouldRegisterMetersUpFront() {
+        // Then
+        assertThat(meterRegistry.find("user.service.operation").tag("method", "deleteUser").timers()).hasSize(2);
+        assertThat(meterRegistry.find("user.service.operation").tag("method", "createUsers").timers()).hasSize(2);
+        assertThat(meterRegistry.get("user.service.operation.failures").tag("reason", "not_found").counter().count())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Should time successful calls under outcome=success")
+    void invoke_Success_ShouldRecordSuccessTimer() {
+        // Given
+        UserResponse user = new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now());
+        when(target.getUserById(1L)).thenReturn(user);
+
+        // When
+        UserResponse result = timed.getUserById(1L);
+
+        // Then
+        assertThat(result).isSameAs(user);
+        assertThat(meterRegistry.get("user.service.operation")
+                .tags("method", "getUserById", "outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should time failed calls under outcome=error and count mapped failures")
+    void invoke_NotFound_ShouldRecordErrorAndCountFailure() {
+        // Given
+        when(target.getUserById(999L)).thenThrow(new UserNotFoundException(999L));
+
+        // When & Then
+        assertThatThrownBy(() -> timed.getUserById(999L)).isInstanceOf(UserNotFoundException.class);
+        assertThat(meterRegistry.get("user.service.operation")
+                .tags("method", "getUserById", "outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("user.service.operation.failures").tag("reason", "not_found").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a subclass of a mapped exception under the mapped reason")
+    void invoke_MappedSubclass_ShouldCountFailure() {
+        // Given
+        when(target.getUserById(1L)).thenThrow(new DuplicateKeyException("duplicate key"));
+
+        // When & Then
+        assertThatThrownBy(() -> timed.getUserById(1L)).isInstanceOf(DuplicateKeyException.class);
+        assertThat(meterRegistry.get("user.service.operation.failures").tag("reason", "constraint_violation")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("user.service.operation.failures").tag("reason", "not_found").counter().count())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Should leave beans of other types untouched")
+    void postProcess_OtherBean_ShouldReturnSameInstance() {
+        // Given
+        TimedMethodsPostProcessor postProcessor = new TimedMethodsPostProcessor(
+                beanFactory.getBeanProvider(MeterRegistry.class), List.of());
+        Object bean = new Object();
+
+        // When & Then
+        assertThat(postProcessor.postProcessAfterInitialization(bean, "other")).isSameAs(bean);
+    }
+}
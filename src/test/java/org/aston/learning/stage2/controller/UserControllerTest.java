@@ -1,27 +1,42 @@
 package org.aston.learning.stage2.controller;
 
+import org.aston.learning.stage2.dto.UserBatchItemResult;
+import org.aston.learning.stage2.dto.UserBatchResponse;
+import org.aston.learning.stage2.dto.UserBulkDeleteResponse;
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserPageResponse;
+import org.aston.learning.stage2.dto.UserPatchRequest;
 import org.aston.learning.stage2.dto.UserRequest;
 import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
+import org.aston.learning.stage2.service.CoalescedLoadTimeoutException;
+import org.aston.learning.stage2.service.UserAlreadyExistsException;
 import org.aston.learning.stage2.service.UserService;
+import org.aston.learning.stage2.service.UserVersionMismatchException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(UserLinkFactory.class)
 @TestPropertySource(properties = {
         "spring.cloud.config.enabled=false",
         "eureka.client.enabled=false",
@@ -39,25 +54,47 @@ class UserControllerTest {
     private UserService userService;
 
     @Test
-    void getAllUsers_ShouldReturnUsersList() throws Exception {
+    void getAllUsers_ShouldReturnUsersPage() throws Exception {
         // Given
         List<UserResponse> users = Arrays.asList(
                 new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now()),
                 new UserResponse(2L, "Jane Smith", "jane@example.com", 25, LocalDateTime.now())
         );
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsersPage(null, UserService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new UserPageResponse(users, null, UserService.DEFAULT_PAGE_SIZE));
 
         // When & Then
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("John Doe"))
-                .andExpect(jsonPath("$[1].id").value(2))
-                .andExpect(jsonPath("$[1].name").value("Jane Smith"));
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].id").value(1))
+                .andExpect(jsonPath("$.users[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.users[1].id").value(2))
+                .andExpect(jsonPath("$.users[1].name").value("Jane Smith"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        verify(userService, times(1)).getUsersPage(null, UserService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    void getAllUsers_WithMorePages_ShouldReturnNextCursorAndLink() throws Exception {
+        // Given
+        List<UserResponse> users = List.of(
+                new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now())
+        );
 
-        verify(userService, times(1)).getAllUsers();
+        when(userService.getUsersPage("abc", 1)).thenReturn(new UserPageResponse(users, "def", 1));
+
+        // When & Then
+        mockMvc.perform(get("/api/users").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/users?cursor=def&size=1"));
+
+        verify(userService, times(1)).getUsersPage("abc", 1);
     }
 
     @Test
@@ -74,7 +111,11 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.id").value(userId))
                 .andExpect(jsonPath("$.name").value("John Doe"))
                 .andExpect(jsonPath("$.email").value("john@example.com"))
-                .andExpect(jsonPath("$.age").value(30));
+                .andExpect(jsonPath("$.age").value(30))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/api/users/1"))
+                .andExpect(jsonPath("$._links.all-users.href").value("http://localhost/api/users?size=20"))
+                .andExpect(jsonPath("$._links.update.href").value("http://localhost/api/users/1"))
+                .andExpect(jsonPath("$._links.delete.href").value("http://localhost/api/users/1"));
 
         verify(userService, times(1)).getUserById(userId);
     }
@@ -95,6 +136,32 @@ class UserControllerTest {
         verify(userService, times(1)).getUserById(userId);
     }
 
+    @Test
+    void getUserByEmail_ShouldReturnUserWithLinks() throws Exception {
+        // Given
+        when(userService.getUserByEmail("john@example.com")).thenReturn(versioned(2L));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/by-email?email=john@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.email").value("john@example.com"))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/api/users/1"));
+
+        verify(userService, never()).getUserById(anyLong());
+    }
+
+    @Test
+    void getUserById_CoalescedLoadTimedOut_ShouldReturnServiceUnavailable() throws Exception {
+        // Given
+        when(userService.getUserById(1L)).thenThrow(new CoalescedLoadTimeoutException(1L));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", 1L))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Timed out waiting for the in-flight load of 1"));
+    }
+
     @Test
     void createUser_ValidRequest_ShouldReturnCreatedUser() throws Exception {
         // Given
@@ -108,6 +175,7 @@ class UserControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userRequest)))
                 .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/api/users/1"))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.name").value("John Doe"))
                 .andExpect(jsonPath("$.email").value("john@example.com"))
@@ -137,7 +205,7 @@ class UserControllerTest {
         UserRequest userRequest = new UserRequest("John Updated", "john.updated@example.com", 35);
         UserResponse userResponse = new UserResponse(userId, "John Updated", "john.updated@example.com", 35, LocalDateTime.now());
 
-        when(userService.updateUser(eq(userId), any(UserRequest.class))).thenReturn(userResponse);
+        when(userService.updateUser(eq(userId), any(UserRequest.class), isNull())).thenReturn(userResponse);
 
         // When & Then
         mockMvc.perform(put("/api/users/{id}", userId)
@@ -149,7 +217,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("john.updated@example.com"))
                 .andExpect(jsonPath("$.age").value(35));
 
-        verify(userService, times(1)).updateUser(eq(userId), any(UserRequest.class));
+        verify(userService, times(1)).updateUser(eq(userId), any(UserRequest.class), isNull());
     }
 
     @Test
@@ -157,13 +225,13 @@ class UserControllerTest {
         // Given
         Long userId = 1L;
 
-        doNothing().when(userService).deleteUser(userId);
+        doNothing().when(userService).deleteUser(userId, null);
 
         // When & Then
         mockMvc.perform(delete("/api/users/{id}", userId))
                 .andExpect(status().isNoContent());
 
-        verify(userService, times(1)).deleteUser(userId);
+        verify(userService, times(1)).deleteUser(userId, null);
     }
 
     @Test
@@ -172,13 +240,273 @@ class UserControllerTest {
         Long userId = 999L;
 
         doThrow(new RuntimeException("User not found with id: " + userId))
-                .when(userService).deleteUser(userId);
+                .when(userService).deleteUser(userId, null);
 
         // When & Then
         mockMvc.perform(delete("/api/users/{id}", userId))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("User not found with id: " + userId));
 
-        verify(userService, times(1)).deleteUser(userId);
+        verify(userService, times(1)).deleteUser(userId, null);
+    }
+
+    @Test
+    void getUserById_ShouldReturnVersionAsETag() throws Exception {
+        // Given
+        when(userService.getUserById(1L)).thenReturn(versioned(3L));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getUserById_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(userService.getUserById(1L)).thenReturn(versioned(3L));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", 1L).header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void updateUser_IfMatch_ShouldPassVersionAndReturnNewETag() throws Exception {
+        // Given
+        UserRequest userRequest = new UserRequest("John Updated", "john@example.com", 35);
+        when(userService.updateUser(eq(1L), any(UserRequest.class), eq(3L))).thenReturn(versioned(4L));
+
+        // When & Then
+        mockMvc.perform(put("/api/users/{id}", 1L)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateUser_StaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // Given
+        UserRequest userRequest = new UserRequest("John Updated", "john@example.com", 35);
+        when(userService.updateUser(eq(1L), any(UserRequest.class), eq(2L)))
+                .thenThrow(new UserVersionMismatchException(1L));
+
+        // When & Then
+        mockMvc.perform(put("/api/users/{id}", 1L)
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequest)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void deleteUser_WeakIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // When & Then
+        mockMvc.perform(delete("/api/users/{id}", 1L).header("If-Match", "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void exportUsers_ShouldStreamNdjsonLines() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<UserResponse> consumer = invocation.getArgument(0);
+            consumer.accept(new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.of(2024, 1, 1, 12, 0)));
+            consumer.accept(new UserResponse(2L, "Jane Smith", "jane@example.com", 25, LocalDateTime.of(2024, 1, 2, 12, 0)));
+            return null;
+        }).when(userService).exportUsers(any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserController.NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":1", "\"name\":\"John Doe\"").doesNotContain("links");
+        assertThat(lines[1]).contains("\"id\":2", "\"email\":\"jane@example.com\"");
+
+        verify(userService, times(1)).exportUsers(any());
+    }
+
+    @Test
+    void createUsers_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        List<UserRequest> userRequests = List.of(
+                new UserRequest("John Doe", "john@example.com", 30),
+                new UserRequest("Jane Smith", "john@example.com", 25)
+        );
+        UserBatchResponse response = new UserBatchResponse(List.of(
+                UserBatchItemResult.created(0, new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now())),
+                UserBatchItemResult.failed(1, UserBatchItemResult.Status.DUPLICATE,
+                        List.of("User with email john@example.com already exists"))
+        ));
+
+        when(userService.createUsers(anyList())).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].user.id").value(1))
+                .andExpect(jsonPath("$.results[0].user._links.self.href").value("http://localhost/api/users/1"))
+                .andExpect(jsonPath("$.results[1].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.results[1].errors[0]").value("User with email john@example.com already exists"));
+
+        verify(userService, times(1)).createUsers(anyList());
+    }
+
+    @Test
+    void createUser_DuplicateEmail_ShouldReturnConflict() throws Exception {
+        // Given
+        UserRequest userRequest = new UserRequest("John Doe", "john@example.com", 30);
+
+        when(userService.createUser(any(UserRequest.class)))
+                .thenThrow(new UserAlreadyExistsException("User with email john@example.com already exists"));
+
+        // When & Then
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("User with email john@example.com already exists"));
+    }
+
+    @Test
+    void patchUser_MergePatch_ShouldPassFieldsAndReturnNewETag() throws Exception {
+        // Given
+        when(userService.patchUser(eq(1L), any(UserPatchRequest.class), eq(3L))).thenReturn(versioned(4L));
+
+        // When & Then
+        mockMvc.perform(patch("/api/users/{id}", 1L)
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"age\":31}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/api/users/1"));
+
+        verify(userService).patchUser(eq(1L), argThat(patch ->
+                patch.getAge() == 31 && patch.getName() == null && patch.getEmail() == null), eq(3L));
+    }
+
+    @Test
+    void patchUser_BlankName_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/api/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"  \"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void patchUser_DuplicateEmail_ShouldReturnConflict() throws Exception {
+        // Given
+        when(userService.patchUser(eq(1L), any(UserPatchRequest.class), isNull()))
+                .thenThrow(new UserAlreadyExistsException("User with email taken@example.com already exists"));
+
+        // When & Then
+        mockMvc.perform(patch("/api/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserPatchRequest(null, "taken@example.com", null))))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void deleteUsers_ShouldReturnDeletedAndMissingIds() throws Exception {
+        // Given
+        when(userService.deleteUsers(List.of(1L, 2L, 3L)))
+                .thenReturn(new UserBulkDeleteResponse(List.of(1L, 3L), List.of(2L)));
+
+        // When & Then
+        mockMvc.perform(delete("/api/users").param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted.length()").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value(2));
+    }
+
+    @Test
+    void getUsersByIds_ShouldReturnUsersInOrderWithMissingIds() throws Exception {
+        // Given
+        UserResponse user = new UserResponse(3L, "John Doe", "john@example.com", 30, LocalDateTime.now());
+        when(userService.getUsersByIds(List.of(3L, 2L)))
+                .thenReturn(new UserLookupResponse(List.of(user), List.of(2L)));
+
+        // When & Then
+        mockMvc.perform(get("/api/users?ids=3,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(3))
+                .andExpect(jsonPath("$.users[0]._links.self.href").value("http://localhost/api/users/3"))
+                .andExpect(jsonPath("$.notFound[0]").value(2));
+
+        verify(userService, never()).getUsersPage(any(), anyInt());
+    }
+
+    @Test
+    void lookupUsers_ShouldReadIdsFromBody() throws Exception {
+        // Given
+        when(userService.getUsersByIds(List.of(1L, 2L)))
+                .thenReturn(new UserLookupResponse(List.of(), List.of(1L, 2L)));
+
+        // When & Then
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(0))
+                .andExpect(jsonPath("$.notFound.length()").value(2));
+    }
+
+    @Test
+    void searchUsers_ShouldBindFiltersAndKeepThemInNextLink() throws Exception {
+        // Given
+        UserPageResponse page = new UserPageResponse(List.of(versioned(1L)), "abc", 1);
+        when(userService.searchUsers(any(UserSearchRequest.class), isNull(), eq(1))).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/api/users/search?namePrefix=jo&minAge=18&createdAfter=2024-01-01T00:00:00&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("John Doe"))
+                .andExpect(jsonPath("$._links.next.href")
+                        .value("http://localhost/api/users/search?namePrefix=jo&minAge=18"
+                                + "&createdAfter=2024-01-01T00:00:00&size=1&cursor=abc"));
+
+        verify(userService).searchUsers(argThat(criteria -> criteria.getNamePrefix().equals("jo")
+                && criteria.getMinAge() == 18
+                && criteria.getCreatedAfter().equals(LocalDateTime.of(2024, 1, 1, 0, 0))), isNull(), eq(1));
+    }
+
+    @Test
+    void searchUsers_NegativeAge_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/users/search").param("minAge", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
+    private static UserResponse versioned(Long version) {
+        UserResponse user = new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now());
+        user.setVersion(version);
+        return user;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package org.aston.learning.stage2.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserEventCodecTest {
+
+    private final UserEventBinarySerializer serializer = new UserEventBinarySerializer();
+    private final UserEventBinaryDeserializer deserializer = new UserEventBinaryDeserializer();
+
+    @Test
+    @DisplayName("Should round-trip a user event through the binary format")
+    void encodeDecode_ShouldPreserveAllFields() {
+        // Given
+        UserEvent event = event("USER_CREATED", "john@example.com", "John Doe",
+                LocalDateTime.of(2024, 5, 17, 10, 30, 15, 123_456_789));
+
+        // When
+        UserEvent decoded = deserializer.deserialize("user-events", serializer.serialize("user-events", event));
+
+        // Then
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Should round-trip custom event types, null fields and pre-epoch timestamps")
+    void encodeDecode_EdgeCases_ShouldBePreserved() {
+        // Given
+        UserEvent custom = event("USER_RENAMED", "ünïcode@example.com", null, LocalDateTime.of(1969, 12, 31, 23, 59));
+        UserEvent empty = event(null, null, null, null);
+
+        // When & Then
+        assertThat(UserEventCodec.decode(UserEventCodec.encode(custom))).usingRecursiveComparison().isEqualTo(custom);
+        assertThat(UserEventCodec.decode(UserEventCodec.encode(empty))).usingRecursiveComparison().isEqualTo(empty);
+    }
+
+    @Test
+    @DisplayName("Should be much smaller than the JSON encoding")
+    void encode_ShouldBeSmallerThanJson() {
+        // Given
+        UserEvent event = new UserEvent("USER_DELETED", "jane.smith@example.com", "Jane Smith");
+
+        // When
+        byte[] binary = serializer.serialize("user-events", event);
+        byte[] json;
+        try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize("user-events", event);
+        }
+
+        // Then
+        assertThat(binary[0]).isEqualTo(UserEventCodec.VERSION_1);
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    @DisplayName("Should still read JSON events")
+    void deserialize_Json_ShouldFallBack() {
+        // Given
+        byte[] json = "{\"eventType\":\"USER_CREATED\",\"email\":\"john@example.com\",\"userName\":\"John Doe\",\"timestamp\":\"2024-05-17T10:30:15\"}"
+                .getBytes();
+
+        // When
+        UserEvent decoded = deserializer.deserialize("user-events", json);
+
+        // Then
+        assertThat(decoded.getEventType()).isEqualTo("USER_CREATED");
+        assertThat(decoded.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 5, 17, 10, 30, 15));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown format versions")
+    void deserialize_UnknownVersion_ShouldThrow() {
+        // When & Then
+        assertThatThrownBy(() -> deserializer.deserialize("user-events", new byte[] {9, 1, 0, 0, 0}))
+                .isInstanceOf(SerializationException.class)
+                .hasRootCauseMessage("Unsupported user event format version 9");
+    }
+
+    private static UserEvent event(String type, String email, String userName, LocalDateTime timestamp) {
+        UserEvent event = new UserEvent();
+        event.setEventType(type);
+        event.setEmail(email);
+        event.setUserName(userName);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
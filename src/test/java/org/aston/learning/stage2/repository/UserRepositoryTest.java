@@ -7,6 +7,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
@@ -17,6 +21,8 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -250,4 +256,182 @@ class UserRepositoryTest {
         assertThatThrownBy(() -> userRepository.save(duplicateUser))
                 .isInstanceOf(Exception.class); // Spring Data throws DataIntegrityViolationException
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should page users by (createdAt, id) keyset")
+    void findPageAfter_ShouldContinueFromKeyset() {
+        // Given - third user shares createdAt with user2, so id breaks the tie
+        User user3 = new User("Jack Black", "jack@example.com", 45);
+        user3.setCreatedAt(user2.getCreatedAt());
+        user3 = userRepository.save(user3);
+
+        // When
+        List<UserView> firstPage = userRepository.findFirstPage(PageRequest.of(0, 2));
+        UserView last = firstPage.get(firstPage.size() - 1);
+        List<UserView> secondPage = userRepository.findPageAfter(last.createdAt(), last.id(), PageRequest.of(0, 2));
+
+        // Then
+        assertThat(firstPage).extracting(UserView::id).containsExactly(user1.getId(), user2.getId());
+        assertThat(secondPage).extracting(UserView::id).containsExactly(user3.getId());
+    }
+
+    @Test
+    @DisplayName("Should stream all users ordered by ID")
+    void streamAll_ShouldReturnAllUsersInIdOrder() {
+        // When
+        List<Long> ids;
+        try (Stream<UserView> users = userRepository.streamAll()) {
+            ids = users.map(UserView::id).toList();
+        }
+
+        // Then
+        assertThat(ids).containsExactly(user1.getId(), user2.getId());
+    }
+
+    @Test
+    @DisplayName("Should batch insert users and assign generated IDs")
+    void insertAll_ShouldAssignIds() {
+        // Given
+        List<User> newUsers = List.of(
+                new User("Batch One", "batch1@example.com", 20),
+                new User("Batch Two", "batch2@example.com", null)
+        );
+
+        // When
+        userRepository.insertAll(newUsers);
+
+        // Then
+        assertThat(newUsers).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(userRepository.findById(newUsers.get(1).getId()))
+                .get()
+                .extracting(User::getEmail)
+                .isEqualTo("batch2@example.com");
+    }
+
+    @Test
+    @DisplayName("Should roll back a batch with a taken email and keep the transaction usable")
+    void insertAll_DuplicateEmail_ShouldRollBackToSavepoint() {
+        // Given
+        List<User> withDuplicate = List.of(
+                new User("Batch One", "batch1@example.com", 20),
+                new User("Copy", "john@example.com", 30)
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> userRepository.insertAll(withDuplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(userRepository.findExistingEmails(List.of("batch1@example.com", "john@example.com")))
+                .containsExactly("john@example.com");
+        userRepository.insertAll(List.of(new User("Batch One", "batch1@example.com", 20)));
+        assertThat(userRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should find which of the given emails already exist")
+    void findExistingEmails_ShouldReturnOnlyExistingOnes() {
+        // When
+        Set<String> existing = userRepository.findExistingEmails(
+                List.of("john@example.com", "nobody@example.com", "jane@example.com"));
+
+        // Then
+        assertThat(existing).containsExactlyInAnyOrder("john@example.com", "jane@example.com");
+    }
+
+    @Test
+    @DisplayName("Should delete a user and return its email and name")
+    void deleteReturning_ShouldReturnRemovedRow() {
+        // When
+        Optional<DeletedUser> deleted = userRepository.deleteReturning(user1.getId(), null);
+
+        // Then
+        assertThat(deleted).contains(new DeletedUser(user1.getId(), "John Doe", "john@example.com"));
+        assertThat(userRepository.existsById(user1.getId())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not delete a user when the version does not match")
+    void deleteReturning_StaleVersion_ShouldDeleteNothing() {
+        // When
+        Optional<DeletedUser> deleted = userRepository.deleteReturning(user1.getId(), user1.getVersion() + 1);
+
+        // Then
+        assertThat(deleted).isEmpty();
+        assertThat(userRepository.existsById(user1.getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should delete the existing users among the given IDs")
+    void deleteAllReturning_ShouldSkipMissingIds() {
+        // When
+        List<DeletedUser> deleted = userRepository.deleteAllReturning(List.of(user1.getId(), user2.getId(), 999_999L));
+
+        // Then
+        assertThat(deleted).extracting(DeletedUser::email)
+                .containsExactlyInAnyOrder("john@example.com", "jane@example.com");
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should combine search filters and derive the email domain")
+    void findSlice_WithFilters_ShouldReturnMatchingUsers() {
+        // Given
+        userRepository.save(new User("Johanna Berg", "johanna@Corp.example.org", 41));
+        Specification<User> spec = Specification.allOf(List.of(
+                UserSpecifications.namePrefix("JOH"),
+                UserSpecifications.emailDomain("@corp.example.org"),
+                UserSpecifications.ageAtLeast(40)));
+
+        // When
+        List<UserView> users = userRepository.findSlice(spec, Sort.by("createdAt", "id"), 10);
+
+        // Then
+        assertThat(users).extracting(UserView::name).containsExactly("Johanna Berg");
+    }
+
+    @Test
+    @DisplayName("Should continue a name-sorted search after the keyset position")
+    void findSlice_AfterName_ShouldSkipEarlierRows() {
+        // When
+        List<UserView> users = userRepository.findSlice(
+                UserSpecifications.afterName(user2.getName(), user2.getId(), false),
+                Sort.by("name", "id"), 10);
+
+        // Then
+        assertThat(users).extracting(UserView::name).containsExactly("John Doe");
+    }
+
+    @Test
+    @DisplayName("Should treat LIKE wildcards in a name prefix literally")
+    void findSlice_WildcardPrefix_ShouldMatchNothing() {
+        // When
+        List<UserView> users = userRepository.findSlice(UserSpecifications.namePrefix("%"), Sort.by("id"), 10);
+
+        // Then
+        assertThat(users).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read a user view without attaching an entity")
+    void findViewById_ShouldReturnResponseColumns() {
+        // When
+        Optional<UserView> view = userRepository.findViewById(user1.getId());
+
+        // Then
+        assertThat(view).get()
+                .extracting(UserView::id, UserView::name, UserView::email, UserView::age, UserView::version)
+                .containsExactly(user1.getId(), "John Doe", "john@example.com", 30, user1.getVersion());
+        assertThat(view.get().createdAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should load the views of many ids in one query and skip unknown ids")
+    void findViewsByIdIn_ShouldReturnExistingUsers() {
+        // When
+        List<UserView> views = userRepository.findViewsByIdIn(Set.of(user1.getId(), user2.getId(), -1L));
+
+        // Then
+        assertThat(views).extracting(UserView::email)
+                .containsExactlyInAnyOrder("john@example.com", "jane@example.com");
+    }
+}
@@ -0,0 +1,52 @@
+package org.aston.learning.stage2.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EmailBloomFilterTest {
+
+    @Test
+    @DisplayName("Should never report an added email as absent")
+    void bits_AddedEmails_ShouldAlwaysMatch() {
+        // Given
+        EmailBloomFilter.Bits bits = new EmailBloomFilter.Bits(10_000, 0.01);
+
+        // When
+        IntStream.range(0, 10_000).forEach(i -> bits.put("user" + i + "@example.com"));
+
+        // Then
+        assertThat(IntStream.range(0, 10_000))
+                .allMatch(i -> bits.mightContain("user" + i + "@example.com"));
+        assertThat(bits.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("Should keep the false positive rate close to the configured one")
+    void bits_UnknownEmails_ShouldRarelyMatch() {
+        // Given
+        EmailBloomFilter.Bits bits = new EmailBloomFilter.Bits(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> bits.put("user" + i + "@example.com"));
+
+        // When
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> bits.mightContain("other" + i + "@example.org"))
+                .count();
+
+        // Then
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    @DisplayName("Should answer 'maybe' for every email while disabled")
+    void mightContain_Disabled_ShouldAlwaysReturnTrue() {
+        // Given
+        EmailBloomFilter filter = new EmailBloomFilter(null, null, null, false, 1000, 0.01, 0.1);
+
+        // When & Then
+        assertThat(filter.mightContain("anyone@example.com")).isTrue();
+    }
+}
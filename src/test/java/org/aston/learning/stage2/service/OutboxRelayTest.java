@@ -0,0 +1,148 @@
+package org.aston.learning.stage2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.aston.learning.stage2.entity.OutboxEvent;
+import org.aston.learning.stage2.event.UserEvent;
+import org.aston.learning.stage2.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private UserEventDispatcher userEventDispatcher;
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        userEventDispatcher = mock(UserEventDispatcher.class);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxEventRepository, userEventDispatcher, objectMapper,
+                mock(PlatformTransactionManager.class), meterRegistry,
+                10, Duration.ofSeconds(1), Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Should send every pending event and mark acknowledged ones as processed")
+    void relayBatch_ShouldMarkOnlyAcknowledgedEvents() throws Exception {
+        // Given
+        OutboxEvent created = event(1L, new UserEvent("USER_CREATED", "john@example.com", "John Doe"));
+        OutboxEvent deleted = event(2L, new UserEvent("USER_DELETED", "jane@example.com", "Jane Smith"));
+
+        when(outboxEventRepository.lockPending(any(Pageable.class))).thenReturn(List.of(created, deleted));
+        when(userEventDispatcher.dispatch(eq(UserEventPublisher.TOPIC), isNull(), argThat(e -> "USER_CREATED".equals(((UserEvent) e).getEventType()))))
+                .thenReturn(CompletableFuture.completedFuture(sendResult()));
+        when(userEventDispatcher.dispatch(eq(UserEventPublisher.TOPIC), isNull(), argThat(e -> "USER_DELETED".equals(((UserEvent) e).getEventType()))))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isEqualTo(1);
+        assertThat(created.getProcessedAt()).isNotNull();
+        assertThat(deleted.getProcessedAt()).isNull();
+        assertThat(meterRegistry.get("user.outbox.sent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("user.outbox.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep later events of a key pending when an earlier one failed")
+    void relayBatch_EarlierEventOfKeyFailed_ShouldKeepLaterOnesPending() throws Exception {
+        // Given
+        OutboxEvent created = event(1L, "42", new UserEvent("USER_CREATED", "john@example.com", "John Doe"));
+        OutboxEvent deleted = event(2L, "42", new UserEvent("USER_DELETED", "john@example.com", "John Doe"));
+        OutboxEvent other = event(3L, "7", new UserEvent("USER_CREATED", "jane@example.com", "Jane Smith"));
+
+        when(outboxEventRepository.lockPending(any(Pageable.class))).thenReturn(List.of(created, deleted, other));
+        when(userEventDispatcher.dispatch(eq(UserEventPublisher.TOPIC), eq("42"), argThat(e -> "USER_CREATED".equals(((UserEvent) e).getEventType()))))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        when(userEventDispatcher.dispatch(eq(UserEventPublisher.TOPIC), eq("42"), argThat(e -> "USER_DELETED".equals(((UserEvent) e).getEventType()))))
+                .thenReturn(CompletableFuture.completedFuture(sendResult()));
+        when(userEventDispatcher.dispatch(eq(UserEventPublisher.TOPIC), eq("7"), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult()));
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isEqualTo(1);
+        assertThat(created.getProcessedAt()).isNull();
+        assertThat(deleted.getProcessedAt()).isNull();
+        assertThat(other.getProcessedAt()).isNotNull();
+        assertThat(meterRegistry.get("user.outbox.pending").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should wait for a batch's acknowledgements only until one shared deadline")
+    void relayBatch_StalledBroker_ShouldGiveUpAtBatchDeadline() throws Exception {
+        // Given - a 1s send timeout and three sends that never complete
+        OutboxEvent first = event(1L, new UserEvent("USER_CREATED", "a@example.com", "A"));
+        OutboxEvent second = event(2L, new UserEvent("USER_CREATED", "b@example.com", "B"));
+        OutboxEvent third = event(3L, new UserEvent("USER_CREATED", "c@example.com", "C"));
+
+        when(outboxEventRepository.lockPending(any(Pageable.class))).thenReturn(List.of(first, second, third));
+        when(userEventDispatcher.dispatch(any(), any(), any())).thenAnswer(invocation -> new CompletableFuture<>());
+
+        // When
+        long started = System.nanoTime();
+        int sent = relay.relayBatch();
+        Duration waited = Duration.ofNanos(System.nanoTime() - started);
+
+        // Then
+        assertThat(sent).isZero();
+        assertThat(waited).isLessThan(Duration.ofMillis(2500));
+        assertThat(meterRegistry.get("user.outbox.failed").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not send anything when the outbox is empty")
+    void relayBatch_EmptyOutbox_ShouldDoNothing() {
+        // Given
+        when(outboxEventRepository.lockPending(any(Pageable.class))).thenReturn(List.of());
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isZero();
+        verifyNoInteractions(userEventDispatcher);
+        verify(outboxEventRepository, never()).countByProcessedAtIsNull();
+        assertThat(meterRegistry.get("user.outbox.lag").gauge().value()).isZero();
+        assertThat(meterRegistry.get("user.outbox.pending").gauge().value()).isZero();
+    }
+
+    private static SendResult<String, Object> sendResult() {
+        return new SendResult<>(new ProducerRecord<>(UserEventPublisher.TOPIC, "payload"), null);
+    }
+
+    private OutboxEvent event(Long id, UserEvent payload) throws Exception {
+        return event(id, null, payload);
+    }
+
+    private OutboxEvent event(Long id, String key, UserEvent payload) throws Exception {
+        OutboxEvent event = new OutboxEvent(UserEventPublisher.TOPIC, key,
+                UserEvent.class.getName(), objectMapper.writeValueAsString(payload));
+        event.setId(id);
+        return event;
+    }
+}
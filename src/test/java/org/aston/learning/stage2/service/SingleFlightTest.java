@@ -0,0 +1,160 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Counter coalesced;
+    private SingleFlight<Long, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        coalesced = new SimpleMeterRegistry().counter("user.cache.coalesced");
+        singleFlight = new SingleFlight<>(Duration.ofSeconds(5), coalesced);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run one load for concurrent callers of the same key and share its result")
+    void execute_ConcurrentCallers_ShouldLoadOnce() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return "John Doe";
+        });
+        waitForWaiters();
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("John Doe");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalesced.count()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("Should hand the leader's exception to every waiter")
+    void execute_LoaderThrows_ShouldPropagateToAllWaiters() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<Future<String>> results = callConcurrently(() -> {
+            await(release);
+            throw new UserNotFoundException(1L);
+        });
+        waitForWaiters();
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(UserNotFoundException.class)
+                    .hasRootCauseMessage("User not found with id: 1");
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail waiters after the timeout while the leader is still loading")
+    void execute_SlowLoad_ShouldTimeOutWaiters() throws Exception {
+        // Given
+        singleFlight = new SingleFlight<>(Duration.ofMillis(50), coalesced);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            return "John Doe";
+        }));
+        waitUntilInFlight();
+
+        // When & Then
+        assertThatThrownBy(() -> singleFlight.execute(1L, () -> "other"))
+                .isInstanceOf(CoalescedLoadTimeoutException.class);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("John Doe");
+    }
+
+    @Test
+    @DisplayName("Should start a fresh load after forget and after the previous one finished")
+    void execute_AfterForgetOrCompletion_ShouldLoadAgain() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = executor.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            return "old";
+        }));
+        waitUntilInFlight();
+
+        // When
+        singleFlight.forget(1L);
+        String fresh = singleFlight.execute(1L, () -> "new");
+        release.countDown();
+
+        // Then
+        assertThat(fresh).isEqualTo("new");
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(singleFlight.execute(1L, () -> "newer")).isEqualTo("newer");
+        assertThat(coalesced.count()).isZero();
+    }
+
+    private List<Future<String>> callConcurrently(Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, loader)));
+        }
+        return results;
+    }
+
+    // Every caller but the leader has joined the flight
+    private void waitForWaiters() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalesced.count() < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void waitUntilInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!singleFlight.isInFlight(1L) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
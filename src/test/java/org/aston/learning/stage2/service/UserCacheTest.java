@@ -0,0 +1,133 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private UserEventPublisher userEventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userEventPublisher = mock(UserEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userEventPublisher, meterRegistry, true, 100, Duration.ofMinutes(5),
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should load once and serve further reads from cache")
+    void get_SecondCall_ShouldNotCallLoader() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        userCache.get(1L, () -> load(loads));
+        UserResponse second = userCache.get(1L, () -> load(loads));
+
+        // Then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second.getName()).isEqualTo("John Doe");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hand out copies so links added by callers do not leak into the cache")
+    void get_ShouldReturnIndependentCopies() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        UserResponse first = userCache.get(1L, () -> load(loads));
+
+        // When
+        first.add(Link.of("/api/users/1"));
+        UserResponse second = userCache.get(1L, () -> load(loads));
+
+        // Then
+        assertThat(second.getLinks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should evict on invalidate and broadcast to other instances")
+    void invalidate_ShouldEvictAndBroadcast() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        userCache.get(1L, () -> load(loads));
+
+        // When
+        userCache.invalidate(1L);
+        userCache.get(1L, () -> load(loads));
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+        verify(userEventPublisher).publishCacheInvalidation(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that was overtaken by an invalidation")
+    void get_InvalidatedDuringLoad_ShouldNotCacheStaleRow() {
+        // Given - a write commits and evicts after the load read the row, before it is cached
+        AtomicInteger loads = new AtomicInteger();
+        UserResponse stale = userCache.get(1L, () -> {
+            UserResponse loaded = load(loads);
+            userCache.invalidate(1L);
+            return loaded;
+        });
+
+        // When
+        userCache.get(1L, () -> load(loads));
+
+        // Then
+        assertThat(stale.getName()).isEqualTo("John Doe");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not cache failed loads")
+    void get_LoaderThrows_ShouldPropagateAndNotCache() {
+        // When & Then
+        assertThatThrownBy(() -> userCache.get(1L, () -> {
+            throw new RuntimeException("User not found with id: 1");
+        })).hasMessage("User not found with id: 1");
+
+        AtomicInteger loads = new AtomicInteger();
+        userCache.get(1L, () -> load(loads));
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should bypass cache when disabled")
+    void get_Disabled_ShouldAlwaysLoad() {
+        // Given
+        UserCache disabled = new UserCache(userEventPublisher, meterRegistry, false, 100, Duration.ofMinutes(5),
+                Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        disabled.get(1L, () -> load(loads));
+        disabled.get(1L, () -> load(loads));
+        disabled.invalidate(1L);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+        verifyNoInteractions(userEventPublisher);
+    }
+
+    private static UserResponse load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new UserResponse(1L, "John Doe", "john@example.com", 30, LocalDateTime.now());
+    }
+}
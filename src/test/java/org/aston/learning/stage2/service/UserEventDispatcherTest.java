@@ -0,0 +1,167 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserEventDispatcherTest {
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private UserEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        kafkaTemplate = mock();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null && dispatcher.isRunning()) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send queued events on the sender thread and complete the caller's future")
+    void dispatch_ShouldCompleteWithSendResult() throws Exception {
+        // Given
+        SendResult<String, Object> sendResult = sendResult("1", "payload");
+        when(kafkaTemplate.send("user-events", "1", "payload"))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+        dispatcher = dispatcher(10, UserEventDispatcher.OverflowPolicy.FAIL);
+        dispatcher.start();
+
+        // When
+        SendResult<String, Object> result = dispatcher.dispatch("user-events", "1", "payload")
+                .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(result).isSameAs(sendResult);
+        assertThat(meterRegistry.get("user.events.publish").tag("result", "success").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("user.events.publish.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail the future on a failed send without requeueing it behind newer events")
+    void dispatch_FailedSend_ShouldFailWithoutRequeue() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        dispatcher = dispatcher(10, UserEventDispatcher.OverflowPolicy.FAIL);
+        dispatcher.start();
+
+        // When
+        CompletableFuture<SendResult<String, Object>> future = dispatcher.dispatch("user-events", "1", "payload");
+
+        // Then
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .hasRootCauseMessage("broker down");
+        verify(kafkaTemplate, times(1)).send("user-events", "1", "payload");
+        assertThat(dispatcher.getQueueDepth()).isZero();
+        assertThat(meterRegistry.get("user.events.publish").tag("result", "failure").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should throw EventQueueFullException under the FAIL policy when the queue is full")
+    void dispatch_FullQueue_FailPolicy_ShouldThrow() {
+        // Given - not started, so nothing drains the queue
+        dispatcher = dispatcher(1, UserEventDispatcher.OverflowPolicy.FAIL);
+        dispatcher.dispatch("user-events", "1", "first");
+
+        // When & Then
+        assertThatThrownBy(() -> dispatcher.dispatch("user-events", "2", "second"))
+                .isInstanceOf(EventQueueFullException.class);
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(1);
+        assertThat(meterRegistry.get("user.events.publish").tag("result", "dropped").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail only the returned future under the DROP policy when the queue is full")
+    void dispatch_FullQueue_DropPolicy_ShouldFailFuture() {
+        // Given
+        dispatcher = dispatcher(1, UserEventDispatcher.OverflowPolicy.DROP);
+        dispatcher.dispatch("user-events", "1", "first");
+
+        // When
+        CompletableFuture<SendResult<String, Object>> future = dispatcher.dispatch("user-events", "2", "second");
+
+        // Then
+        assertThat(future).isCompletedExceptionally();
+        assertThatThrownBy(future::join).hasCauseInstanceOf(EventQueueFullException.class);
+    }
+
+    @Test
+    @DisplayName("Should give up after block-timeout under the BLOCK policy")
+    void dispatch_FullQueue_BlockPolicy_ShouldThrowAfterTimeout() {
+        // Given
+        dispatcher = dispatcher(1, UserEventDispatcher.OverflowPolicy.BLOCK);
+        dispatcher.dispatch("user-events", "1", "first");
+
+        // When & Then
+        assertThatThrownBy(() -> dispatcher.dispatch("user-events", "2", "second"))
+                .isInstanceOf(EventQueueFullException.class);
+    }
+
+    @Test
+    @DisplayName("Should drop and count without throwing or blocking on tryDispatch when the queue is full")
+    void tryDispatch_FullQueue_ShouldCountDropAndNotThrow() {
+        // Given
+        dispatcher = dispatcher(1, UserEventDispatcher.OverflowPolicy.BLOCK);
+        dispatcher.dispatch("user-events", "1", "first");
+
+        // When
+        boolean accepted = dispatcher.tryDispatch("user-cache-invalidation", "2", null);
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(1);
+        assertThat(meterRegistry.get("user.events.publish").tag("result", "dropped").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should flush queued events on stop")
+    void stop_ShouldFlushQueue() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        sendResult(invocation.getArgument(1), invocation.getArgument(2))));
+        dispatcher = dispatcher(10, UserEventDispatcher.OverflowPolicy.FAIL);
+        dispatcher.dispatch("user-events", "1", "first");
+        dispatcher.dispatch("user-events", "2", "second");
+
+        // When
+        dispatcher.start();
+        dispatcher.stop();
+
+        // Then
+        assertThat(dispatcher.getQueueDepth()).isZero();
+        verify(kafkaTemplate, times(2)).send(eq("user-events"), anyString(), any());
+    }
+
+    private UserEventDispatcher dispatcher(int capacity, UserEventDispatcher.OverflowPolicy policy) {
+        return new UserEventDispatcher(kafkaTemplate, meterRegistry, capacity, policy, Duration.ofMillis(20));
+    }
+
+    private static SendResult<String, Object> sendResult(String key, Object value) {
+        return new SendResult<>(new ProducerRecord<>("user-events", key, value), null);
+    }
+}
@@ -0,0 +1,200 @@
+package org.aston.learning.stage2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aston.learning.stage2.event.UserStateEvent;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.aston.learning.stage2.repository.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserReadModelTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        readModel = newReadModel(true);
+    }
+
+    @Test
+    @DisplayName("Should serve only after the snapshot is loaded")
+    void startBootstrap_ShouldLoadSnapshotAndStartServing() {
+        // Given
+        when(userRepository.streamAll()).thenReturn(Stream.of(
+                view(1L, "john@example.com", 0L),
+                view(2L, "jane@example.com", 3L)));
+        readModel.partitionsAssigned(List.of(0));
+        readModel.markFresh(0, System.currentTimeMillis());
+        assertThat(readModel.isServing()).isFalse();
+
+        // When
+        readModel.startBootstrap();
+        readModel.startBootstrap();
+
+        // Then
+        assertThat(readModel.isServing()).isTrue();
+        assertThat(readModel.findById(2L)).get().extracting(UserView::version).isEqualTo(3L);
+        assertThat(readModel.findByEmail("john@example.com")).get().extracting(UserView::id).isEqualTo(1L);
+        assertThat(meterRegistry.get("user.read-model.users").gauge().value()).isEqualTo(2.0);
+        verify(userRepository, times(1)).streamAll();
+    }
+
+    @Test
+    @DisplayName("Should keep the highest version and move the email index along")
+    void apply_ShouldIgnoreOlderVersions() {
+        // Given
+        readModel.applyLocal(state(1L, "old@example.com", 2L));
+
+        // When
+        readModel.apply(0, state(1L, "new@example.com", 3L));
+        readModel.apply(0, state(1L, "stale@example.com", 1L));
+
+        // Then
+        assertThat(readModel.findById(1L)).get().extracting(UserView::email).isEqualTo("new@example.com");
+        assertThat(readModel.findByEmail("old@example.com")).isEmpty();
+        assertThat(readModel.findByEmail("stale@example.com")).isEmpty();
+        assertThat(readModel.findByEmail("new@example.com")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should not let a late event bring back a deleted user")
+    void apply_AfterDelete_ShouldStayDeleted() {
+        // Given
+        readModel.applyLocal(state(1L, "john@example.com", 0L));
+
+        // When
+        readModel.applyLocal(UserStateEvent.deleted(1L));
+        readModel.apply(0, state(1L, "john@example.com", 1L));
+
+        // Then
+        assertThat(readModel.findById(1L)).isEmpty();
+        assertThat(readModel.findByEmail("john@example.com")).isEmpty();
+        assertThat(readModel.findPage(null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should page in (createdAt, id) order from a cursor")
+    void findPage_ShouldContinueAfterCursor() {
+        // Given
+        readModel.applyLocal(state(3L, "c@example.com", 0L));
+        readModel.applyLocal(state(1L, "a@example.com", 0L));
+        readModel.applyLocal(state(2L, "b@example.com", 0L));
+
+        // When
+        List<UserView> first = readModel.findPage(null, 2);
+        List<UserView> next = readModel.findPage(new UserCursor(CREATED_AT, 2L), 2);
+
+        // Then
+        assertThat(first).extracting(UserView::id).containsExactly(1L, 2L);
+        assertThat(next).extracting(UserView::id).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should stop serving while streamed events lag behind more than the bound")
+    void apply_LaggingEvent_ShouldStopServing() {
+        // Given
+        when(userRepository.streamAll()).thenReturn(Stream.empty());
+        readModel.startBootstrap();
+        readModel.partitionsAssigned(List.of(0));
+        UserStateEvent late = state(1L, "john@example.com", 0L);
+        late.setWrittenAt(System.currentTimeMillis() - 10_000);
+
+        // When
+        readModel.apply(0, late);
+
+        // Then
+        assertThat(readModel.isServing()).isFalse();
+        assertThat(meterRegistry.get("user.read-model.lag").gauge().value()).isGreaterThanOrEqualTo(10.0);
+
+        readModel.apply(0, state(2L, "jane@example.com", 0L));
+        assertThat(readModel.isServing()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should stop serving once the last freshness confirmation is older than the bound")
+    void isServing_StalledConsumer_ShouldStopServing() {
+        // Given - fresh a moment ago, then nothing: no events, no successful check
+        when(userRepository.streamAll()).thenReturn(Stream.empty());
+        readModel.startBootstrap();
+        readModel.partitionsAssigned(List.of(0, 1));
+        readModel.markFresh(0, System.currentTimeMillis());
+        readModel.markFresh(1, System.currentTimeMillis() - 10_000);
+
+        // When & Then - the staler partition decides
+        assertThat(readModel.isServing()).isFalse();
+        assertThat(meterRegistry.get("user.read-model.lag").gauge().value()).isGreaterThanOrEqualTo(10.0);
+
+        readModel.markFresh(1, System.currentTimeMillis());
+        assertThat(readModel.isServing()).isTrue();
+
+        readModel.partitionsRevoked(List.of(0, 1));
+        assertThat(readModel.isServing()).isFalse();
+        assertThat(meterRegistry.get("user.read-model.lag").gauge().value()).isNaN();
+    }
+
+    @Test
+    @DisplayName("Should log a failed bootstrap and load again on the next call")
+    void startBootstrap_Failure_ShouldAllowRetry() {
+        // Given
+        when(userRepository.streamAll())
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(Stream.of(view(1L, "john@example.com", 0L)));
+        readModel.partitionsAssigned(List.of(0));
+        readModel.markFresh(0, System.currentTimeMillis());
+
+        // When
+        readModel.startBootstrap();
+        boolean servingAfterFailure = readModel.isServing();
+        readModel.startBootstrap();
+
+        // Then
+        assertThat(servingAfterFailure).isFalse();
+        assertThat(readModel.isServing()).isTrue();
+        assertThat(readModel.findById(1L)).isPresent();
+        verify(userRepository, times(2)).streamAll();
+    }
+
+    @Test
+    @DisplayName("Should never serve or bootstrap when disabled")
+    void disabled_ShouldNotServe() {
+        // Given
+        UserReadModel disabled = newReadModel(false);
+
+        // When
+        disabled.startBootstrap();
+
+        // Then
+        assertThat(disabled.isServing()).isFalse();
+        verifyNoInteractions(userRepository);
+    }
+
+    private UserReadModel newReadModel(boolean enabled) {
+        return new UserReadModel(userRepository, mock(PlatformTransactionManager.class), new SyncTaskExecutor(),
+                meterRegistry, enabled, Duration.ofSeconds(5), Duration.ofHours(1));
+    }
+
+    private static UserView view(Long id, String email, Long version) {
+        return new UserView(id, "User " + id, email, 30, CREATED_AT, version);
+    }
+
+    private static UserStateEvent state(Long id, String email, Long version) {
+        return new UserStateEvent(id, "User " + id, email, 30, CREATED_AT, version);
+    }
+}
@@ -0,0 +1,176 @@
+package org.aston.learning.stage2.service;
+
+import org.aston.learning.stage2.dto.UserPatchRequest;
+import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
+import org.aston.learning.stage2.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.aston.learning.stage2.config.QueryCountAssertions.assertQueryCount;
+
+/**
+ * Exact JDBC statement budgets of each UserService operation. A change that adds a query
+ * (an N+1, a re-load, an extra existence check) fails here; lower the budget when one is removed.
+ */
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.config.import=optional:file:.env[.properties]",
+        "eureka.client.enabled=false",
+        "user.outbox.relay.enabled=false"
+})
+class UserServiceQueryBudgetTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static KafkaContainer kafka = new KafkaContainer(
+            DockerImageName.parse("confluentinc/cp-kafka:7.4.0")
+    ).withEnv("KAFKA_AUTO_CREATE_TOPICS_ENABLE", "true");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("createUser: user INSERT + outbox INSERT")
+    void createUser_QueryBudget() {
+        assertQueryCount("createUser", 2,
+                () -> userService.createUser(new UserRequest("John Doe", "john@example.com", 30)));
+    }
+
+    @Test
+    @DisplayName("createUsers: one email lookup + one batched user INSERT + one batched outbox INSERT")
+    void createUsers_QueryBudget() {
+        List<UserRequest> requests = List.of(
+                new UserRequest("User1", "user1@example.com", 20),
+                new UserRequest("User2", "user2@example.com", 25),
+                new UserRequest("User3", "user3@example.com", 30));
+
+        assertQueryCount("createUsers", 3, () -> userService.createUsers(requests));
+    }
+
+    @Test
+    @DisplayName("getUserById: one SELECT on a cache miss, none on a hit")
+    void getUserById_QueryBudget() {
+        UserResponse user = userService.createUser(new UserRequest("John Doe", "john@example.com", 30));
+
+        assertQueryCount("getUserById (miss)", 1, () -> userService.getUserById(user.getId()));
+        assertQueryCount("getUserById (hit)", 0, () -> userService.getUserById(user.getId()));
+    }
+
+    @Test
+    @DisplayName("getUsersPage: one keyset SELECT, no count query")
+    void getUsersPage_QueryBudget() {
+        userService.createUser(new UserRequest("User1", "user1@example.com", 20));
+        userService.createUser(new UserRequest("User2", "user2@example.com", 25));
+
+        assertQueryCount("getUsersPage", 1, () -> userService.getUsersPage(null, 1));
+    }
+
+    @Test
+    @DisplayName("searchUsers: one SELECT, no count query")
+    void searchUsers_QueryBudget() {
+        userService.createUser(new UserRequest("John Doe", "john@example.com", 30));
+        userService.createUser(new UserRequest("Jane Doe", "jane@example.com", 25));
+        UserSearchRequest criteria = new UserSearchRequest();
+        criteria.setEmailDomain("example.com");
+        criteria.setSort("name");
+
+        assertQueryCount("searchUsers", 1, () -> userService.searchUsers(criteria, null, 1));
+    }
+
+    @Test
+    @DisplayName("getUsersByIds: one SELECT ... IN for any number of ids")
+    void getUsersByIds_QueryBudget() {
+        List<Long> ids = List.of(
+                userService.createUser(new UserRequest("User 1", "user1@example.com", 30)).getId(),
+                userService.createUser(new UserRequest("User 2", "user2@example.com", 30)).getId(),
+                -1L);
+
+        assertQueryCount("getUsersByIds", 1, () -> userService.getUsersByIds(ids));
+    }
+
+    @Test
+    @DisplayName("updateUser: SELECT + email check + UPDATE")
+    void updateUser_QueryBudget() {
+        UserResponse user = userService.createUser(new UserRequest("Old Name", "old@example.com", 25));
+
+        assertQueryCount("updateUser", 3,
+                () -> userService.updateUser(user.getId(), new UserRequest("New Name", "new@example.com", 30)));
+    }
+
+    @Test
+    @DisplayName("patchUser: a single UPDATE ... RETURNING")
+    void patchUser_QueryBudget() {
+        UserResponse user = userService.createUser(new UserRequest("Old Name", "old@example.com", 25));
+
+        assertQueryCount("patchUser", 1,
+                () -> userService.patchUser(user.getId(), new UserPatchRequest(null, "new@example.com", null), null));
+    }
+
+    @Test
+    @DisplayName("deleteUser: DELETE ... RETURNING + outbox INSERT")
+    void deleteUser_QueryBudget() {
+        UserResponse user = userService.createUser(new UserRequest("John Doe", "john@example.com", 30));
+
+        assertQueryCount("deleteUser", 2, () -> userService.deleteUser(user.getId()));
+    }
+
+    @Test
+    @DisplayName("deleteUsers: one DELETE ... RETURNING + one batched outbox INSERT, for any number of ids")
+    void deleteUsers_QueryBudget() {
+        List<Long> ids = List.of(
+                userService.createUser(new UserRequest("User 1", "user1@example.com", 30)).getId(),
+                userService.createUser(new UserRequest("User 2", "user2@example.com", 30)).getId(),
+                userService.createUser(new UserRequest("User 3", "user3@example.com", 30)).getId());
+
+        assertQueryCount("deleteUsers", 2, () -> userService.deleteUsers(ids));
+    }
+
+    @Test
+    @DisplayName("exportUsers: a single streaming SELECT regardless of row count")
+    void exportUsers_QueryBudget() {
+        userService.createUsers(List.of(
+                new UserRequest("User1", "user1@example.com", 20),
+                new UserRequest("User2", "user2@example.com", 25)));
+
+        assertQueryCount("exportUsers", 1, () -> userService.exportUsers(user -> { }));
+    }
+}
@@ -1,15 +1,38 @@
 package org.aston.learning.stage2.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.aston.learning.stage2.dto.UserBatchItemResult;
+import org.aston.learning.stage2.dto.UserBatchResponse;
+import org.aston.learning.stage2.dto.UserBulkDeleteResponse;
+import org.aston.learning.stage2.dto.UserLookupResponse;
+import org.aston.learning.stage2.dto.UserPageResponse;
+import org.aston.learning.stage2.dto.UserPatchRequest;
 import org.aston.learning.stage2.dto.UserRequest;
+import org.aston.learning.stage2.dto.UserResponse;
+import org.aston.learning.stage2.dto.UserSearchRequest;
 import org.aston.learning.stage2.entity.User;
+import org.aston.learning.stage2.repository.DeletedUser;
+import org.aston.learning.stage2.repository.PatchedUser;
+import org.aston.learning.stage2.repository.UserView;
 import org.aston.learning.stage2.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,6 +47,18 @@ class UserServiceTest {
     @Mock
     private UserEventPublisher userEventPublisher;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private EmailBloomFilter emailFilter;
+
+    @Mock
+    private UserReadModel userReadModel;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -34,7 +69,6 @@ class UserServiceTest {
         User savedUser = new User("Young User", "young@example.com", 0);
         savedUser.setId(1L);
 
-        when(userRepository.existsByEmail(userRequest.getEmail())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
 
         // When & Then
@@ -51,7 +85,6 @@ class UserServiceTest {
         User savedUser = new User("Old User", "old@example.com", 150);
         savedUser.setId(1L);
 
-        when(userRepository.existsByEmail(userRequest.getEmail())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
 
         // When & Then
@@ -72,39 +105,92 @@ class UserServiceTest {
         existingUser.setId(userId);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
+        when(emailFilter.mightContain(sameEmail)).thenReturn(true);
         when(userRepository.existsByEmailAndIdNot(sameEmail, userId)).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenReturn(existingUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(existingUser);
 
         // When & Then
         assertThatNoException().isThrownBy(() -> userService.updateUser(userId, userRequest));
+
+        // Verify that the cached copy was invalidated
+        verify(userCache).invalidate(userId);
+    }
+
+    @Test
+    void updateUser_StaleVersion_ShouldThrowAndNotSave() {
+        // Given
+        Long userId = 1L;
+        User existingUser = new User("Original Name", "same@example.com", 30);
+        existingUser.setId(userId);
+        existingUser.setVersion(5L);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.updateUser(userId, new UserRequest("New", "same@example.com", 31), 4L))
+                .isInstanceOf(UserVersionMismatchException.class);
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void deleteUser_MatchingVersion_ShouldDelete() {
+        // Given
+        Long userId = 1L;
+
+        when(userRepository.deleteReturning(userId, 2L))
+                .thenReturn(Optional.of(new DeletedUser(userId, "Test User", "test@example.com")));
+
+        // When
+        userService.deleteUser(userId, 2L);
+
+        // Then
+        verify(userRepository, never()).findById(anyLong());
+        verify(emailFilter).remove("test@example.com");
+        verify(userEventPublisher).publishUserDeleted("test@example.com", "Test User");
+    }
+
+    @Test
+    void deleteUser_StaleVersion_ShouldThrowVersionMismatch() {
+        // Given
+        Long userId = 1L;
+
+        when(userRepository.deleteReturning(userId, 1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> userService.deleteUser(userId, 1L))
+                .isInstanceOf(UserVersionMismatchException.class);
+
+        verifyNoInteractions(userCache, userEventPublisher);
     }
 
     @Test
     void deleteUser_WithMultipleCalls_ShouldHandleGracefully() {
         // Given
         Long userId = 1L;
-        User userToDelete = new User("Test User", "test@example.com", 25);
-        userToDelete.setId(userId);
 
         // First call setup - user exists
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userToDelete));
-        doNothing().when(userRepository).deleteById(userId);
+        when(userRepository.deleteReturning(userId, null))
+                .thenReturn(Optional.of(new DeletedUser(userId, "Test User", "test@example.com")));
 
         // When - First call (should succeed)
         userService.deleteUser(userId);
 
         // Then - Second call setup - user doesn't exist
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.deleteReturning(userId, null)).thenReturn(Optional.empty());
 
         // When & Then - Second call should fail
         assertThatThrownBy(() -> userService.deleteUser(userId))
-                .isInstanceOf(RuntimeException.class)
+                .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User not found with id: " + userId);
 
         // Verify interactions
-        verify(userRepository, times(2)).findById(userId);
-        verify(userRepository, times(1)).deleteById(userId);
+        verify(userRepository, times(2)).deleteReturning(userId, null);
+        verify(userRepository, never()).existsById(anyLong());
         verify(userEventPublisher, times(1)).publishUserDeleted("test@example.com", "Test User");
+        verify(userCache, times(1)).invalidate(userId);
     }
 
     @Test
@@ -117,7 +203,487 @@ class UserServiceTest {
 
         // When & Then
         assertThatThrownBy(() -> userService.updateUser(userId, userRequest))
-                .isInstanceOf(RuntimeException.class)
+                .isInstanceOf(UserNotFoundException.class)
                 .hasMessageContaining("User not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersPage_WithMoreRows_ShouldReturnNextCursor() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        UserView first = new UserView(1L, "First", "first@example.com", 20, createdAt, 0L);
+        UserView second = new UserView(2L, "Second", "second@example.com", 21, createdAt.plusSeconds(1), 0L);
+        UserView third = new UserView(3L, "Third", "third@example.com", 22, createdAt.plusSeconds(2), 0L);
+
+        when(userRepository.findFirstPage(PageRequest.of(0, 3))).thenReturn(List.of(first, second, third));
+
+        // When
+        UserPageResponse page = userService.getUsersPage(null, 2);
+
+        // Then
+        assertThat(page.getUsers()).extracting(UserResponse::getId).containsExactly(1L, 2L);
+        assertThat(page.getSize()).isEqualTo(2);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        UserCursor cursor = UserCursor.decode(page.getNextCursor());
+        assertThat(cursor.getId()).isEqualTo(2L);
+        assertThat(cursor.getCreatedAt()).isEqualTo(second.createdAt());
+    }
+
+    @Test
+    void getUsersPage_WithCursor_ShouldContinueAfterPosition() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String cursor = UserCursor.encode(createdAt, 5L);
+        UserView next = new UserView(6L, "Next", "next@example.com", 30, createdAt.plusSeconds(1), 0L);
+
+        when(userRepository.findPageAfter(createdAt, 5L, PageRequest.of(0, 11))).thenReturn(List.of(next));
+
+        // When
+        UserPageResponse page = userService.getUsersPage(cursor, 10);
+
+        // Then
+        assertThat(page.getUsers()).extracting(UserResponse::getId).containsExactly(6L);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getUsersPage_WithTooLargeSize_ShouldClampToMaximum() {
+        // Given
+        when(userRepository.findFirstPage(PageRequest.of(0, UserService.MAX_PAGE_SIZE + 1))).thenReturn(List.of());
+
+        // When
+        UserPageResponse page = userService.getUsersPage(null, 10_000);
+
+        // Then
+        assertThat(page.getSize()).isEqualTo(UserService.MAX_PAGE_SIZE);
+        assertThat(page.getUsers()).isEmpty();
+    }
+
+    @Test
+    void getUsersPage_WithInvalidCursor_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> userService.getUsersPage("not-a-cursor", 10))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Invalid cursor");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void createUsers_ShouldReportResultForEveryItem() {
+        // Given
+        UserRequest valid = new UserRequest("New User", "new@example.com", 30);
+        UserRequest invalid = new UserRequest("", "invalid-email", -1);
+        UserRequest duplicateInBatch = new UserRequest("Copy", "new@example.com", 31);
+        UserRequest existing = new UserRequest("Existing", "existing@example.com", 40);
+
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<UserRequest> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Name is mandatory");
+        when(validator.validate(any(UserRequest.class))).thenReturn(Set.of());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        when(emailFilter.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingEmails(List.of("new@example.com", "existing@example.com")))
+                .thenReturn(Set.of("existing@example.com"));
+        when(userRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.get(0).setId(10L);
+            return users;
+        });
+
+        // When
+        UserBatchResponse response = userService.createUsers(List.of(valid, invalid, duplicateInBatch, existing));
+
+        // Then
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(UserBatchItemResult::getStatus).containsExactly(
+                UserBatchItemResult.Status.CREATED,
+                UserBatchItemResult.Status.INVALID,
+                UserBatchItemResult.Status.DUPLICATE,
+                UserBatchItemResult.Status.DUPLICATE);
+        assertThat(response.getResults().get(0).getUser().getId()).isEqualTo(10L);
+        assertThat(response.getResults().get(1).getErrors()).containsExactly("Name is mandatory");
+        assertThat(response.getResults().get(3).getErrors())
+                .containsExactly("User with email existing@example.com already exists");
+
+        verify(userRepository, times(1)).insertAll(anyList());
+        verify(userEventPublisher, times(1)).publishUserCreated("new@example.com", "New User");
+    }
+
+    @Test
+    void createUsers_EmailTakenOnAnotherInstance_ShouldReportOnlyThatItemAsDuplicate() {
+        // Given
+        UserRequest fresh = new UserRequest("Fresh", "fresh@example.com", 30);
+        UserRequest takenElsewhere = new UserRequest("Elsewhere", "elsewhere@example.com", 40);
+
+        when(validator.validate(any(UserRequest.class))).thenReturn(Set.of());
+        when(emailFilter.mightContain(anyString())).thenReturn(false);
+        when(userRepository.findExistingEmails(List.of("fresh@example.com", "elsewhere@example.com")))
+                .thenReturn(Set.of("elsewhere@example.com"));
+        when(userRepository.insertAll(anyList()))
+                .thenThrow(uniqueViolation())
+                .thenAnswer(invocation -> {
+                    List<User> users = invocation.getArgument(0);
+                    users.get(0).setId(10L);
+                    return users;
+                });
+
+        // When
+        UserBatchResponse response = userService.createUsers(List.of(fresh, takenElsewhere));
+
+        // Then
+        assertThat(response.getResults()).extracting(UserBatchItemResult::getStatus).containsExactly(
+                UserBatchItemResult.Status.CREATED,
+                UserBatchItemResult.Status.DUPLICATE);
+        assertThat(response.getResults().get(0).getUser().getId()).isEqualTo(10L);
+        verify(userRepository, times(2)).insertAll(anyList());
+        verify(userEventPublisher, times(1)).publishUserCreated("fresh@example.com", "Fresh");
+    }
+
+    @Test
+    void createUser_OtherConstraintViolation_ShouldNotReportDuplicate() {
+        // Given
+        UserRequest userRequest = new UserRequest("Name", "name@example.com", 30);
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("not-null",
+                new SQLException("null value in column violates not-null constraint", "23502"));
+
+        when(userRepository.save(any(User.class))).thenThrow(notNull);
+
+        // When & Then
+        assertThatThrownBy(() -> userService.createUser(userRequest)).isSameAs(notNull);
+    }
+
+    @Test
+    void createUsers_OverMaxBatchSize_ShouldThrowException() {
+        // Given
+        List<UserRequest> userRequests = Collections.nCopies(UserService.MAX_BATCH_SIZE + 1,
+                new UserRequest("User", "user@example.com", 20));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.createUsers(userRequests))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Batch size");
+
+        verifyNoInteractions(userRepository, userEventPublisher);
+    }
+
+    @Test
+    void getUserById_ShouldLoadThroughCache() {
+        // Given
+        Long userId = 1L;
+        UserView user = new UserView(userId, "Cached User", "cached@example.com", 30, LocalDateTime.now(), 2L);
+
+        when(userRepository.findViewById(userId)).thenReturn(Optional.of(user));
+        when(userCache.get(eq(userId), any())).thenAnswer(invocation ->
+                invocation.<Supplier<UserResponse>>getArgument(1).get());
+
+        // When
+        UserResponse response = userService.getUserById(userId);
+
+        // Then
+        assertThat(response.getName()).isEqualTo("Cached User");
+        assertThat(response.getVersion()).isEqualTo(2L);
+        verify(userCache).get(eq(userId), any());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void createUser_DuplicateEmail_ShouldTranslateConstraintViolation() {
+        // Given
+        UserRequest userRequest = new UserRequest("Copy", "taken@example.com", 30);
+
+        when(userRepository.save(any(User.class)))
+                .thenThrow(uniqueViolation());
+
+        // When & Then
+        assertThatThrownBy(() -> userService.createUser(userRequest))
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("User with email taken@example.com already exists");
+
+        verify(userRepository, never()).existsByEmail(anyString());
+        verifyNoInteractions(userEventPublisher);
+    }
+
+    @Test
+    void updateUser_EmailUnknownToFilter_ShouldSkipExistsQuery() {
+        // Given
+        Long userId = 1L;
+        UserRequest userRequest = new UserRequest("Name", "fresh@example.com", 30);
+        User existingUser = new User("Name", "old@example.com", 30);
+        existingUser.setId(userId);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
+        when(emailFilter.mightContain("fresh@example.com")).thenReturn(false);
+        when(userRepository.saveAndFlush(existingUser)).thenReturn(existingUser);
+
+        // When
+        userService.updateUser(userId, userRequest);
+
+        // Then
+        verify(userRepository, never()).existsByEmailAndIdNot(anyString(), anyLong());
+        verify(emailFilter).add("fresh@example.com");
+        verify(emailFilter).remove("old@example.com");
+    }
+
+    @Test
+    void patchUser_ChangedEmail_ShouldUpdateFilterAndInvalidateCache() {
+        // Given
+        Long userId = 1L;
+        User patched = new User("Name", "new@example.com", 30);
+        patched.setId(userId);
+        patched.setVersion(4L);
+        UserPatchRequest patch = new UserPatchRequest(null, "new@example.com", null);
+
+        when(userRepository.patch(userId, null, "new@example.com", null, 3L))
+                .thenReturn(Optional.of(new PatchedUser(patched, "old@example.com")));
+
+        // When
+        UserResponse response = userService.patchUser(userId, patch, 3L);
+
+        // Then
+        assertThat(response.getEmail()).isEqualTo("new@example.com");
+        assertThat(response.getVersion()).isEqualTo(4L);
+        verify(userRepository, never()).findById(anyLong());
+        verify(userCache).invalidate(userId);
+        verify(emailFilter).add("new@example.com");
+        verify(emailFilter).remove("old@example.com");
+    }
+
+    @Test
+    void patchUser_DuplicateEmail_ShouldTranslateConstraintViolation() {
+        // Given
+        UserPatchRequest patch = new UserPatchRequest(null, "taken@example.com", null);
+
+        when(userRepository.patch(1L, null, "taken@example.com", null, null))
+                .thenThrow(uniqueViolation());
+
+        // When & Then
+        assertThatThrownBy(() -> userService.patchUser(1L, patch, null))
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("User with email taken@example.com already exists");
+
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void patchUser_NoRowUpdated_ShouldTellStaleVersionFromMissingUser() {
+        // Given
+        UserPatchRequest patch = new UserPatchRequest(null, null, 40);
+
+        when(userRepository.patch(anyLong(), isNull(), isNull(), eq(40), anyLong())).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> userService.patchUser(1L, patch, 3L))
+                .isInstanceOf(UserVersionMismatchException.class);
+        assertThatThrownBy(() -> userService.patchUser(2L, patch, 3L))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    void patchUser_EmptyPatch_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> userService.patchUser(1L, new UserPatchRequest(), null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("At least one of name, email or age must be provided");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersByIds_ShouldKeepRequestOrderAndReportMissingIds() {
+        // Given
+        UserView one = new UserView(1L, "One", "one@example.com", 30, LocalDateTime.now(), 0L);
+        UserView three = new UserView(3L, "Three", "three@example.com", 40, LocalDateTime.now(), 2L);
+
+        when(userRepository.findViewsByIdIn(List.of(3L, 2L, 1L))).thenReturn(List.of(one, three));
+
+        // When
+        UserLookupResponse response = userService.getUsersByIds(List.of(3L, 2L, 1L, 3L));
+
+        // Then
+        assertThat(response.getUsers()).extracting(UserResponse::getId).containsExactly(3L, 1L);
+        assertThat(response.getUsers().get(0).getVersion()).isEqualTo(2L);
+        assertThat(response.getNotFound()).containsExactly(2L);
+        verify(userRepository, times(1)).findViewsByIdIn(anyCollection());
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void getUserById_ReadModelServing_ShouldNotTouchCacheOrDatabase() {
+        // Given
+        UserView user = new UserView(1L, "John Doe", "john@example.com", 30, LocalDateTime.now(), 4L);
+
+        when(userReadModel.isServing()).thenReturn(true);
+        when(userReadModel.findById(1L)).thenReturn(Optional.of(user));
+
+        // When
+        UserResponse response = userService.getUserById(1L);
+
+        // Then
+        assertThat(response.getName()).isEqualTo("John Doe");
+        assertThat(response.getVersion()).isEqualTo(4L);
+        verifyNoInteractions(userCache, userRepository);
+    }
+
+    @Test
+    void getUserByEmail_UnknownToReadModel_ShouldFallBackToDatabase() {
+        // Given
+        UserView user = new UserView(1L, "John Doe", "john@example.com", 30, LocalDateTime.now(), 0L);
+
+        when(userReadModel.isServing()).thenReturn(true);
+        when(userReadModel.findByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findViewByEmail("john@example.com")).thenReturn(Optional.of(user));
+
+        // When
+        UserResponse response = userService.getUserByEmail("john@example.com");
+
+        // Then
+        assertThat(response.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void getUsersByIds_ReadModelServing_ShouldQueryOnlyMissingIds() {
+        // Given
+        UserView one = new UserView(1L, "One", "one@example.com", 30, LocalDateTime.now(), 0L);
+        UserView two = new UserView(2L, "Two", "two@example.com", 30, LocalDateTime.now(), 0L);
+
+        when(userReadModel.isServing()).thenReturn(true);
+        when(userReadModel.findAllById(Set.of(1L, 2L, 3L))).thenReturn(List.of(one));
+        when(userRepository.findViewsByIdIn(List.of(2L, 3L))).thenReturn(List.of(two));
+
+        // When
+        UserLookupResponse response = userService.getUsersByIds(List.of(1L, 2L, 3L));
+
+        // Then
+        assertThat(response.getUsers()).extracting(UserResponse::getId).containsExactly(1L, 2L);
+        assertThat(response.getNotFound()).containsExactly(3L);
+    }
+
+    @Test
+    void getUsersPage_ReadModelServing_ShouldPageFromMemory() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        UserView first = new UserView(1L, "One", "one@example.com", 30, createdAt, 0L);
+        UserView second = new UserView(2L, "Two", "two@example.com", 30, createdAt, 0L);
+
+        when(userReadModel.isServing()).thenReturn(true);
+        when(userReadModel.findPage(isNull(), eq(2))).thenReturn(List.of(first, second));
+
+        // When
+        UserPageResponse page = userService.getUsersPage(null, 1);
+
+        // Then
+        assertThat(page.getUsers()).extracting(UserResponse::getId).containsExactly(1L);
+        assertThat(page.getNextCursor()).isEqualTo(UserCursor.encode(createdAt, 1L));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersByIds_EmptyIds_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> userService.getUsersByIds(List.of()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("At least one id must be provided");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void deleteUsers_ShouldPublishOneBatchAndReportMissingIds() {
+        // Given
+        List<DeletedUser> deleted = List.of(
+                new DeletedUser(1L, "One", "one@example.com"),
+                new DeletedUser(3L, "Three", "three@example.com"));
+
+        when(userRepository.deleteAllReturning(Set.of(1L, 2L, 3L))).thenReturn(deleted);
+
+        // When
+        UserBulkDeleteResponse response = userService.deleteUsers(List.of(1L, 2L, 3L, 1L));
+
+        // Then
+        assertThat(response.getDeleted()).containsExactly(1L, 3L);
+        assertThat(response.getNotFound()).containsExactly(2L);
+        verify(userEventPublisher).publishUsersDeleted(deleted);
+        verify(userEventPublisher, never()).publishUserDeleted(anyString(), anyString());
+        verify(userCache).invalidateAll(List.of(1L, 3L));
+        verify(emailFilter).remove("one@example.com");
+        verify(emailFilter).remove("three@example.com");
+    }
+
+    @Test
+    void deleteUsers_OverMaxBatchSize_ShouldThrowException() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= UserService.MAX_BATCH_SIZE + 1; id++) {
+            ids.add(id);
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> userService.deleteUsers(ids))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Batch size must not exceed " + UserService.MAX_BATCH_SIZE + " users");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void searchUsers_WithMoreRows_ShouldReturnCursorForTheSameSort() {
+        // Given
+        UserSearchRequest criteria = new UserSearchRequest();
+        criteria.setNamePrefix("jo");
+        criteria.setSort("name,desc");
+        UserView first = new UserView(2L, "John", "john@example.com", 30, LocalDateTime.now(), 0L);
+        UserView second = new UserView(1L, "Joan", "joan@example.com", 30, LocalDateTime.now(), 0L);
+
+        when(userRepository.findSlice(any(), eq(Sort.by(Sort.Direction.DESC, "name", "id")), eq(2)))
+                .thenReturn(List.of(first, second));
+
+        // When
+        UserPageResponse page = userService.searchUsers(criteria, null, 1);
+
+        // Then
+        assertThat(page.getUsers()).extracting(UserResponse::getName).containsExactly("John");
+        assertThat(page.getNextCursor()).isNotNull();
+
+        criteria.setSort("createdAt");
+        assertThatThrownBy(() -> userService.searchUsers(criteria, page.getNextCursor(), 1))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Cursor was issued for a different sort");
+    }
+
+    @Test
+    void searchUsers_WithInvertedAgeRange_ShouldThrowException() {
+        // Given
+        UserSearchRequest criteria = new UserSearchRequest();
+        criteria.setMinAge(50);
+        criteria.setMaxAge(20);
+
+        // When & Then
+        assertThatThrownBy(() -> userService.searchUsers(criteria, null, 10))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("minAge must not be greater than maxAge");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void searchUsers_WithUnsupportedSort_ShouldThrowException() {
+        // Given
+        UserSearchRequest criteria = new UserSearchRequest();
+        criteria.setSort("email");
+
+        // When & Then
+        assertThatThrownBy(() -> userService.searchUsers(criteria, null, 10))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageStartingWith("Unsupported sort: email");
+    }
+
+    private static DataIntegrityViolationException uniqueViolation() {
+        return new DataIntegrityViolationException("duplicate key value violates unique constraint",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
+    }
+}
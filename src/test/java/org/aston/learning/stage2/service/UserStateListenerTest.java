@@ -0,0 +1,71 @@
+package org.aston.learning.stage2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserStateListenerTest {
+
+    private static final TopicPartition CAUGHT_UP = new TopicPartition(UserEventPublisher.USER_STATE_TOPIC, 0);
+    private static final TopicPartition BEHIND = new TopicPartition(UserEventPublisher.USER_STATE_TOPIC, 1);
+
+    private UserReadModel userReadModel;
+    private UserStateListener listener;
+
+    @BeforeEach
+    void setUp() {
+        userReadModel = mock(UserReadModel.class);
+        listener = new UserStateListener(userReadModel, new ObjectMapper(), Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Should mark only partitions whose position reached the end offset as fresh")
+    void checkFreshness_ShouldMarkCaughtUpPartitions() {
+        // Given
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        consumer.assign(List.of(CAUGHT_UP, BEHIND));
+        consumer.updateEndOffsets(Map.of(CAUGHT_UP, 5L, BEHIND, 8L));
+        consumer.seek(CAUGHT_UP, 5L);
+        consumer.seek(BEHIND, 3L);
+
+        // When
+        listener.checkFreshness(consumer);
+
+        // Then
+        verify(userReadModel).markFresh(eq(0), anyLong());
+        verify(userReadModel, never()).markFresh(eq(1), anyLong());
+        verify(userReadModel).startBootstrap();
+    }
+
+    @Test
+    @DisplayName("Should mark nothing fresh when the broker cannot be reached")
+    @SuppressWarnings("unchecked")
+    void checkFreshness_BrokerDown_ShouldNotMarkFresh() {
+        // Given
+        Consumer<String, String> consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(Set.of(CAUGHT_UP));
+        when(consumer.endOffsets(anyCollection(), any(Duration.class)))
+                .thenThrow(new TimeoutException("Timeout while fetching offsets"));
+
+        // When
+        listener.checkFreshness(consumer);
+
+        // Then
+        verify(userReadModel, never()).markFresh(anyInt(), anyLong());
+        verify(userReadModel).startBootstrap();
+    }
+}